@@ -2,8 +2,10 @@ package net.cesi.minipro.booksuggestionapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BookSuggestionAppApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,163 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+// Client HTTP non bloquant de l'API Google Books (Reactor Netty) : pool de connexions borné,
+// keep-alive, compression gzip, délais par appel, relances avec gigue et requête de couverture facultative.
+@Component
+public class GoogleBooksClient {
+
+    private static final int MAX_RESPONSE_BYTES = 4 * 1024 * 1024;
+
+    private final WebClient webClient;
+    private final GoogleBooksResponseParser responseParser;
+    private final UpstreamScheduler upstreamScheduler;
+
+    private final Duration callTimeout;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeDelay;
+
+    private final Counter retries;
+    private final Counter hedges;
+
+    public GoogleBooksClient(
+            @Value("${google.books.api.url}") String apiBaseUrl,
+            @Value("${google.books.client.max-connections:50}") int maxConnections,
+            @Value("${google.books.client.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMs,
+            @Value("${google.books.client.max-idle-ms:30000}") long maxIdleMs,
+            @Value("${google.books.client.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${google.books.client.response-timeout-ms:5000}") long responseTimeoutMs,
+            @Value("${google.books.client.call-timeout-ms:10000}") long callTimeoutMs,
+            @Value("${google.books.client.retry.max-attempts:2}") int maxRetries,
+            @Value("${google.books.client.retry.min-backoff-ms:100}") long minBackoffMs,
+            @Value("${google.books.client.retry.max-backoff-ms:1000}") long maxBackoffMs,
+            @Value("${google.books.client.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${google.books.client.hedge.delay-ms:500}") long hedgeDelayMs,
+            GoogleBooksResponseParser responseParser,
+            UpstreamScheduler upstreamScheduler,
+            MeterRegistry meterRegistry) {
+        // File d'attente du pool bornée elle aussi : au-delà, échec rapide plutôt qu'accumulation
+        ConnectionProvider connections = ConnectionProvider.builder("google-books")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 4)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .evictInBackground(Duration.ofMillis(maxIdleMs))
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .keepAlive(true)
+                .compress(true);
+
+        this.webClient = WebClient.builder()
+                .baseUrl(apiBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+        this.responseParser = responseParser;
+        this.upstreamScheduler = upstreamScheduler;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        this.maxRetries = maxRetries;
+        this.minBackoff = Duration.ofMillis(minBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeDelay = Duration.ofMillis(hedgeDelayMs);
+        this.retries = Counter.builder("google.books.api.retries")
+                .description("Google Books calls retried after a transient failure")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("google.books.api.hedged")
+                .description("Hedged Google Books calls sent after the hedge delay")
+                .register(meterRegistry);
+    }
+
+    // Appel /volumes déjà admis par le quota ; relances et couverture ne partent que si un jeton est libre.
+    // Le délai de l'appel est callTimeout, réduit au temps restant avant l'échéance du contexte.
+    public Mono<List<BookDTO>> searchVolumes(String query, int maxResults, UpstreamContext context) {
+        UpstreamPriority priority = context.priority();
+        Mono<List<BookDTO>> call = request(query, maxResults)
+                .retryWhen(Retry.backoff(maxRetries, minBackoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(0.5)
+                        .filter(error -> isRetryable(error) && upstreamScheduler.tryAcquireNow(priority))
+                        .doBeforeRetry(signal -> retries.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+
+        if (!hedgeEnabled || priority != UpstreamPriority.INTERACTIVE) {
+            return Mono.defer(() -> call.timeout(timeoutFor(context)));
+        }
+
+        // Requête de couverture : si la première n'a pas répondu après hedgeDelay, une seconde part
+        // et la plus rapide l'emporte ; sans jeton libre, ou en cas d'échec, on attend la première
+        Mono<List<BookDTO>> primary = call.cache();
+        Mono<List<BookDTO>> hedged = Mono.delay(hedgeDelay)
+                .filter(tick -> upstreamScheduler.tryAcquireNow(priority))
+                .flatMap(tick -> {
+                    hedges.increment();
+                    return call;
+                })
+                .onErrorResume(error -> primary)
+                .switchIfEmpty(primary);
+        return Mono.defer(() -> Mono.firstWithSignal(primary, hedged).timeout(timeoutFor(context)));
+    }
+
+    // Calculé à la souscription, une fois le jeton de quota obtenu
+    private Duration timeoutFor(UpstreamContext context) {
+        if (context.deadlineNanos() == 0) return callTimeout;
+        long remaining = Math.max(0, context.deadlineNanos() - System.nanoTime());
+        return remaining < callTimeout.toNanos() ? Duration.ofNanos(remaining) : callTimeout;
+    }
+
+    private Mono<List<BookDTO>> request(String query, int maxResults) {
+        return webClient.get()
+                .uri(uri -> uri
+                        .queryParam("q", "{q}")
+                        .queryParam("maxResults", maxResults)
+                        .queryParam("orderBy", "relevance")
+                        .build(query))
+                .retrieve()
+                .bodyToMono(DataBuffer.class)
+                .map(this::parse)
+                .defaultIfEmpty(List.of());
+    }
+
+    // Lecture en flux du tampon, libéré à la fermeture du flux
+    private List<BookDTO> parse(DataBuffer body) {
+        try (InputStream in = body.asInputStream(true)) {
+            return responseParser.parseVolumes(in);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    // Erreurs réseau, délais et 5xx ; pas les 4xx (429 compris : le quota est déjà dépassé)
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException;
+    }
+}
@@ -0,0 +1,148 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lecture en flux des réponses /volumes : seuls les champs de volumeInfo utilisés sont lus,
+// le reste (saleInfo, accessInfo, searchInfo...) est sauté sans être matérialisé.
+@Component
+public class GoogleBooksResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public List<BookDTO> parseVolumes(InputStream body) throws IOException {
+        List<BookDTO> books = new ArrayList<>();
+        if (body == null) return books;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return books;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    // Jusqu'à la fin du tableau : un élément qui n'est pas un objet (null...) est sauté
+                    JsonToken item;
+                    while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (item == JsonToken.START_OBJECT) {
+                            BookDTO book = readVolume(parser);
+                            if (book != null) books.add(book);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return books;
+    }
+
+    public List<BookDTO> parseVolumes(byte[] body) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            return parseVolumes(in);
+        }
+    }
+
+    // Parseur positionné sur le START_OBJECT d'un item ; null si pas de volumeInfo
+    private BookDTO readVolume(JsonParser parser) throws IOException {
+        String googleBookId = null;
+        BookDTO book = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("id".equals(field) && value == JsonToken.VALUE_STRING) {
+                googleBookId = parser.getText();
+            } else if ("volumeInfo".equals(field) && value == JsonToken.START_OBJECT) {
+                book = readVolumeInfo(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (book != null) {
+            book.setGoogleBookId(googleBookId);
+        }
+        return book;
+    }
+
+    private BookDTO readVolumeInfo(JsonParser parser) throws IOException {
+        BookDTO book = new BookDTO();
+        book.setAuthors(new ArrayList<>());
+        book.setCategories(new ArrayList<>());
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "title" -> book.setTitle(readString(parser, value));
+                case "description" -> book.setDescription(readString(parser, value));
+                case "publishedDate" -> book.setPublishedDate(readString(parser, value));
+                case "language" -> book.setLanguage(readString(parser, value));
+                case "authors" -> book.setAuthors(readStringArray(parser, value));
+                case "categories" -> book.setCategories(readStringArray(parser, value));
+                case "pageCount" -> book.setPageCount(value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null);
+                // Note entière (4) ou décimale (4.5) selon les livres
+                case "averageRating" -> book.setAverageRating(value.isNumeric() ? parser.getDoubleValue() : null);
+                case "imageLinks" -> book.setThumbnailUrl(readThumbnail(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return book;
+    }
+
+    private String readString(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) return parser.getText();
+        parser.skipChildren();
+        return null;
+    }
+
+    private List<String> readStringArray(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return new ArrayList<>();
+        }
+        List<String> values = new ArrayList<>(2);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_STRING) {
+                values.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private String readThumbnail(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String thumbnail = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("thumbnail".equals(field) && token == JsonToken.VALUE_STRING) {
+                thumbnail = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return thumbnail;
+    }
+}
@@ -0,0 +1,55 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Téléchargement des couvertures (books.google.com/books/content), hors quota de l'API Google Books
+@Component
+public class ThumbnailClient {
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ThumbnailClient(
+            @Value("${thumbnails.fetch.max-connections:20}") int maxConnections,
+            @Value("${thumbnails.fetch.timeout-ms:5000}") long timeoutMs,
+            @Value("${thumbnails.fetch.max-image-bytes:1048576}") int maxImageBytes) {
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.create("thumbnails", maxConnections))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(timeoutMs, Integer.MAX_VALUE))
+                .responseTimeout(Duration.ofMillis(timeoutMs))
+                .followRedirect(true)
+                .keepAlive(true);
+        // Au-delà de la taille maximale, le décodage échoue : pas d'image démesurée en mémoire ni sur disque
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxImageBytes))
+                .build();
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    // Vide si la réponse n'est pas une image
+    public Optional<Image> fetch(String url) {
+        return webClient.get()
+                .uri(url)
+                .accept(MediaType.IMAGE_JPEG, MediaType.IMAGE_PNG, MediaType.IMAGE_GIF, MediaType.ALL)
+                .retrieve()
+                .toEntity(byte[].class)
+                .timeout(timeout)
+                .blockOptional()
+                .filter(response -> response.getBody() != null && response.getHeaders().getContentType() != null)
+                .filter(response -> "image".equals(response.getHeaders().getContentType().getType()))
+                .map(response -> new Image(response.getBody(), response.getHeaders().getContentType().toString()));
+    }
+
+    public record Image(byte[] bytes, String contentType) {
+    }
+}
@@ -0,0 +1,70 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import java.util.function.Supplier;
+
+// Priorité et échéance des appels Google Books du thread courant.
+// Sans contexte : requête utilisateur (INTERACTIVE), sans échéance. Propagé aux exécuteurs par AsyncConfig.
+public final class UpstreamContext {
+
+    private static final UpstreamContext DEFAULT = new UpstreamContext(UpstreamPriority.INTERACTIVE, 0);
+    private static final ThreadLocal<UpstreamContext> CURRENT = new ThreadLocal<>();
+
+    private final UpstreamPriority priority;
+    // System.nanoTime() de l'échéance, 0 = aucune
+    private final long deadlineNanos;
+
+    private UpstreamContext(UpstreamPriority priority, long deadlineNanos) {
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static UpstreamContext current() {
+        UpstreamContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    public UpstreamPriority priority() {
+        return priority;
+    }
+
+    public long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    // L'échéance la plus proche l'emporte
+    public static <T> T withDeadline(long deadlineNanos, Supplier<T> call) {
+        UpstreamContext context = current();
+        long deadline = context.deadlineNanos == 0 || deadlineNanos - context.deadlineNanos < 0
+                ? deadlineNanos : context.deadlineNanos;
+        return with(new UpstreamContext(context.priority, deadline), call);
+    }
+
+    // Exécute la tâche avec le contexte du thread qui la soumet
+    public static Runnable wrap(Runnable task) {
+        UpstreamContext context = CURRENT.get();
+        if (context == null) return task;
+        return () -> with(context, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Tâche de fond : priorité basse, sans échéance
+    public static Runnable background(Runnable task) {
+        UpstreamContext context = new UpstreamContext(UpstreamPriority.BACKGROUND, 0);
+        return () -> with(context, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static <T> T with(UpstreamContext context, Supplier<T> call) {
+        UpstreamContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) CURRENT.set(previous); else CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+// File d'attente du quota Google Books : les requêtes utilisateur passent avant les tâches de fond
+public enum UpstreamPriority {
+    INTERACTIVE,
+    BACKGROUND
+}
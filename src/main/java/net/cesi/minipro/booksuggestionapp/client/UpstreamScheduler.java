@@ -0,0 +1,196 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Budget d'appels Google Books (seau à jetons) partagé par toute l'application.
+// INTERACTIVE réserve le prochain jeton (quitte à s'endetter) ; BACKGROUND n'utilise que
+// l'excédent au-dessus d'une réserve et laisse passer toute requête interactive en attente.
+// Un appel est refusé tout de suite si l'attente estimée dépasse son échéance.
+@Component
+public class UpstreamScheduler {
+
+    // Pas de ré-évaluation des tâches de fond en attente
+    private static final long BACKGROUND_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final double backgroundReserve;
+    private final Map<UpstreamPriority, Long> maxWaitNanos = new EnumMap<>(UpstreamPriority.class);
+
+    private double tokens;
+    private long lastRefill;
+
+    private final Map<UpstreamPriority, AtomicInteger> waiting = new EnumMap<>(UpstreamPriority.class);
+    private final Map<UpstreamPriority, Timer> waitTimers = new EnumMap<>(UpstreamPriority.class);
+    private final Map<UpstreamPriority, Counter> rejections = new EnumMap<>(UpstreamPriority.class);
+
+    public UpstreamScheduler(
+            @Value("${google.books.quota.requests-per-second:10}") double requestsPerSecond,
+            @Value("${google.books.quota.burst:20}") int burst,
+            @Value("${google.books.quota.background-reserve:5}") int backgroundReserve,
+            @Value("${google.books.quota.interactive-max-wait-ms:1000}") long interactiveMaxWaitMs,
+            @Value("${google.books.quota.background-max-wait-ms:30000}") long backgroundMaxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.backgroundReserve = Math.min(backgroundReserve, burst - 1);
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        maxWaitNanos.put(UpstreamPriority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMs));
+        maxWaitNanos.put(UpstreamPriority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(backgroundMaxWaitMs));
+
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            String lane = priority.name().toLowerCase(Locale.ROOT);
+            AtomicInteger queued = new AtomicInteger();
+            waiting.put(priority, queued);
+            Gauge.builder("google.books.scheduler.waiting", queued, AtomicInteger::get)
+                    .description("Calls waiting for a Google Books quota token")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("google.books.scheduler.wait")
+                    .description("Time spent waiting for a Google Books quota token")
+                    .tag("lane", lane)
+                    .register(meterRegistry));
+            rejections.put(priority, Counter.builder("google.books.scheduler.rejected")
+                    .description("Calls rejected because the quota wait would exceed their deadline")
+                    .tag("lane", lane)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("google.books.scheduler.tokens", this, UpstreamScheduler::availableTokens)
+                .description("Google Books quota tokens available (negative when reserved ahead)")
+                .register(meterRegistry);
+    }
+
+    // Avec la priorité et l'échéance du contexte courant
+    public boolean acquire() {
+        UpstreamContext context = UpstreamContext.current();
+        return acquire(context.priority(), context.deadlineNanos());
+    }
+
+    // false si le jeton ne peut pas être obtenu avant l'échéance (deadlineNanos = 0 : attente maximale de la file)
+    public boolean acquire(UpstreamPriority priority, long deadlineNanos) {
+        long start = System.nanoTime();
+        long limit = start + maxWaitNanos.get(priority);
+        if (deadlineNanos != 0 && deadlineNanos - limit < 0) limit = deadlineNanos;
+
+        AtomicInteger queued = waiting.get(priority);
+        queued.incrementAndGet();
+        try {
+            while (true) {
+                long waitNanos = priority == UpstreamPriority.INTERACTIVE
+                        ? reserveInteractive(limit)
+                        : tryTakeBackground(limit);
+                if (waitNanos < 0) {
+                    rejections.get(priority).increment();
+                    return false;
+                }
+                if (waitNanos == 0) {
+                    waitTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return true;
+                }
+                if (priority == UpstreamPriority.INTERACTIVE) {
+                    // Jeton déjà réservé : l'attente correspond au délai de reconstitution, rendu si elle est interrompue
+                    if (!parkUntil(System.nanoTime() + waitNanos)) {
+                        refund();
+                        rejections.get(priority).increment();
+                        return false;
+                    }
+                    waitTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return true;
+                }
+                LockSupport.parkNanos(waitNanos);
+                if (Thread.currentThread().isInterrupted()) {
+                    rejections.get(priority).increment();
+                    return false;
+                }
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    // Variante non bloquante : immédiate si un jeton est libre, sinon l'attente se fait sur un thread élastique
+    public Mono<Boolean> acquireAsync(UpstreamPriority priority, long deadlineNanos) {
+        if (tryAcquireNow(priority)) {
+            waitTimers.get(priority).record(0, TimeUnit.NANOSECONDS);
+            return Mono.just(true);
+        }
+        return Mono.fromCallable(() -> acquire(priority, deadlineNanos))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Jeton disponible immédiatement, sans attente ni refus comptabilisé (requêtes facultatives : relances, couverture)
+    public synchronized boolean tryAcquireNow(UpstreamPriority priority) {
+        refill(System.nanoTime());
+        double needed = priority == UpstreamPriority.INTERACTIVE ? 1 : 1 + backgroundReserve;
+        if (tokens < needed) return false;
+        if (priority == UpstreamPriority.BACKGROUND && waiting.get(UpstreamPriority.INTERACTIVE).get() > 0) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    // Retourne l'attente avant de pouvoir appeler (jeton réservé), ou -1 si elle dépasse la limite
+    private synchronized long reserveInteractive(long limit) {
+        long now = System.nanoTime();
+        refill(now);
+        long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (now + waitNanos - limit > 0) return -1;
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    // Retourne 0 si un jeton a été pris, sinon le délai avant de réessayer, ou -1 si l'attente estimée dépasse la limite
+    private synchronized long tryTakeBackground(long limit) {
+        long now = System.nanoTime();
+        refill(now);
+        // Les requêtes interactives en attente passent d'abord
+        double needed = 1 + backgroundReserve;
+        if (tokens >= needed && waiting.get(UpstreamPriority.INTERACTIVE).get() == 0) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil(Math.max(needed - tokens, 1) / permitsPerNano);
+        if (now + waitNanos - limit > 0) return -1;
+        return Math.min(waitNanos, BACKGROUND_POLL_NANOS);
+    }
+
+    // parkNanos peut rendre la main plus tôt : false seulement si le thread est interrompu
+    private static boolean parkUntil(long readyAt) {
+        long remaining;
+        while ((remaining = readyAt - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) return false;
+        }
+        return true;
+    }
+
+    // Rend un jeton réservé mais non utilisé
+    private synchronized void refund() {
+        refill(System.nanoTime());
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+
+    private synchronized double availableTokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+}
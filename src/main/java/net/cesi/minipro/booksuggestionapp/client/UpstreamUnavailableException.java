@@ -0,0 +1,25 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.util.List;
+
+// Google Books n'a pas pu être interrogé (disjoncteur ouvert, quota épuisé, erreur amont).
+// Porte les livres déjà obtenus par les autres requêtes d'une recherche composée.
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final List<BookDTO> partialResults;
+
+    public UpstreamUnavailableException(String message) {
+        this(message, List.of());
+    }
+
+    public UpstreamUnavailableException(String message, List<BookDTO> partialResults) {
+        super(message, null, false, false);
+        this.partialResults = partialResults;
+    }
+
+    public List<BookDTO> getPartialResults() {
+        return partialResults;
+    }
+}
@@ -0,0 +1,42 @@
+package net.cesi.minipro.booksuggestionapp.config;
+
+import net.cesi.minipro.booksuggestionapp.client.UpstreamContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Tâches de fond (rafraîchissement des recommandations...)
+    @Bean(name = "backgroundExecutor")
+    public ThreadPoolTaskExecutor backgroundExecutor(
+            @Value("${background.threads:2}") int threads,
+            @Value("${background.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("background-");
+        // Appels Google Books en file basse priorité du quota
+        executor.setTaskDecorator(UpstreamContext::background);
+        executor.initialize();
+        return executor;
+    }
+
+    // Pré-chargement du catalogue : un seul passage à la fois, sur son propre thread. Ses recherches peuvent
+    // attendre le quota longtemps et ne doivent pas bloquer les tâches de fond (index de similarité, rafraîchissements)
+    @Bean(name = "warmupExecutor")
+    public ThreadPoolTaskExecutor warmupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("catalog-warmup-");
+        // File basse priorité du quota, comme les autres tâches de fond
+        executor.setTaskDecorator(UpstreamContext::background);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package net.cesi.minipro.booksuggestionapp.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCacheConfig {
+
+    // ETag calculé sur le corps des recherches : 304 si le client a déjà la même page de résultats.
+    // Limité aux recherches : le filtre met la réponse en mémoire, ce qui casserait le flux de recommandations.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> searchEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        // Faible : l'ETag reste valable une fois la réponse compressée
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/books/search/*");
+        return registration;
+    }
+}
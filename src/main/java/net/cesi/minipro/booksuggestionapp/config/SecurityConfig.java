@@ -3,6 +3,7 @@ package net.cesi.minipro.booksuggestionapp.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -22,8 +23,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Sondes liveness/readiness publiques, le reste d'Actuator (métriques, prometheus) authentifié
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ACTUATOR")
                         .anyRequest().permitAll()  // ← TOUT EST PUBLIC
-                );
+                )
+                .httpBasic(Customizer.withDefaults());
 
         return http.build();
     }
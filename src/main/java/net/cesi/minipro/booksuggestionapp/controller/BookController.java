@@ -2,13 +2,27 @@ package net.cesi.minipro.booksuggestionapp.controller;
 
 
 import lombok.extern.slf4j.Slf4j;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamUnavailableException;
 import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
 import net.cesi.minipro.booksuggestionapp.dto.RecommendationResponse;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationResult;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationUpdate;
+import net.cesi.minipro.booksuggestionapp.index.SimilarBooksIndex;
+import net.cesi.minipro.booksuggestionapp.service.CatalogSearchService;
+import net.cesi.minipro.booksuggestionapp.service.CoReadingService;
 import net.cesi.minipro.booksuggestionapp.service.GoogleBooksApiService;
 import net.cesi.minipro.booksuggestionapp.service.RecommendationService;
+import net.cesi.minipro.booksuggestionapp.service.RecommendationStore;
+import net.cesi.minipro.booksuggestionapp.service.ThumbnailService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -19,52 +33,110 @@ import java.util.List;
 public class BookController {
 
     private final GoogleBooksApiService googleBooksService;
+    private final CatalogSearchService catalogSearchService;
+    private final RecommendationStore recommendationStore;
     private final RecommendationService recommendationService;
+    private final CoReadingService coReadingService;
+    private final SimilarBooksIndex similarBooksIndex;
+    private final ThumbnailService thumbnailService;
+
+    @Value("${search.local.default-mode:auto}")
+    private String defaultSearchMode;
 
     @Autowired
     public BookController(GoogleBooksApiService googleBooksService,
-                          RecommendationService recommendationService) {
+                          CatalogSearchService catalogSearchService,
+                          RecommendationStore recommendationStore,
+                          RecommendationService recommendationService,
+                          CoReadingService coReadingService,
+                          SimilarBooksIndex similarBooksIndex,
+                          ThumbnailService thumbnailService) {
         this.googleBooksService = googleBooksService;
+        this.catalogSearchService = catalogSearchService;
+        this.recommendationStore = recommendationStore;
         this.recommendationService = recommendationService;
+        this.coReadingService = coReadingService;
+        this.similarBooksIndex = similarBooksIndex;
+        this.thumbnailService = thumbnailService;
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<BookDTO>> searchBooks(
             @RequestParam String query,
-            @RequestParam(defaultValue = "20") int maxResults) {
+            @RequestParam(defaultValue = "20") int maxResults,
+            @RequestParam(required = false) String mode) {
 
-        log.info("Search request: query={}, maxResults={}", query, maxResults);
-        List<BookDTO> books = googleBooksService.searchBooks(query, maxResults);
-        return ResponseEntity.ok(books);
+        String searchMode = mode != null ? mode : defaultSearchMode;
+        log.info("Search request: query={}, maxResults={}, mode={}", query, maxResults, searchMode);
+        List<BookDTO> books = catalogSearchService.search(query, maxResults, searchMode);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(thumbnailService.withProxyUrls(books));
     }
 
+    // Recherches non bloquantes : le thread Tomcat est libéré pendant les appels Google Books
     @GetMapping("/search/genre/{genre}")
-    public ResponseEntity<List<BookDTO>> searchByGenre(
+    public Mono<ResponseEntity<List<BookDTO>>> searchByGenre(
             @PathVariable String genre,
             @RequestParam(defaultValue = "20") int maxResults) {
 
         log.info("Search by genre: {}", genre);
-        List<BookDTO> books = googleBooksService.searchByGenre(genre, maxResults);
-        return ResponseEntity.ok(books);
+        return searchResponse(googleBooksService.searchByGenreAsync(genre, maxResults));
     }
 
     @GetMapping("/search/author/{author}")
-    public ResponseEntity<List<BookDTO>> searchByAuthor(
+    public Mono<ResponseEntity<List<BookDTO>>> searchByAuthor(
             @PathVariable String author,
             @RequestParam(defaultValue = "20") int maxResults) {
 
         log.info("Search by author: {}", author);
-        List<BookDTO> books = googleBooksService.searchByAuthor(author, maxResults);
-        return ResponseEntity.ok(books);
+        return searchResponse(googleBooksService.searchByAuthorAsync(author, maxResults));
+    }
+
+    // Google Books indisponible : les livres déjà obtenus (souvent aucun), comme les variantes synchrones
+    private Mono<ResponseEntity<List<BookDTO>>> searchResponse(Mono<List<BookDTO>> search) {
+        return search
+                .onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(e.getPartialResults()))
+                .map(books -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(thumbnailService.withProxyUrls(books)));
+    }
+
+    // Les lecteurs de ce livre ont aussi lu
+    @GetMapping("/{googleBookId}/also-read")
+    public ResponseEntity<List<BookDTO>> alsoRead(
+            @PathVariable String googleBookId,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        log.info("Also read: {}", googleBookId);
+        return ResponseEntity.ok(thumbnailService.withProxyUrls(coReadingService.alsoRead(googleBookId, Math.min(limit, 100))));
+    }
+
+    // Livres proches par le contenu (description, catégories, auteurs), servis depuis l'index local
+    @GetMapping("/{googleBookId}/similar")
+    public ResponseEntity<List<BookDTO>> similar(
+            @PathVariable String googleBookId,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        log.info("Similar books: {}", googleBookId);
+        return similarBooksIndex.similar(googleBookId, Math.max(1, Math.min(limit, 100)))
+                .map(books -> ResponseEntity.ok(thumbnailService.withProxyUrls(books)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/recommendations/{userId}")
     public ResponseEntity<RecommendationResponse> getRecommendations(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+
+        // Liste pré-calculée inchangée depuis le dernier appel du client : 304, sans classement ni sérialisation
+        String version = recommendationStore.version(userId, limit);
+        if (version != null && request.checkNotModified(version)) {
+            log.debug("Recommendations for user {} not modified", userId);
+            return null;
+        }
 
         log.info("Get recommendations for user: {}", userId);
-        List<BookDTO> recommendations = recommendationService.getRecommendations(userId, limit);
+        RecommendationResult result = recommendationStore.getRecommendations(userId, limit);
+        // Couvertures réécrites vers le proxy : n'entre pas dans l'ETag, calculé sur les identifiants
+        List<BookDTO> recommendations = thumbnailService.withProxyUrls(result.getBooks());
 
         RecommendationResponse response = RecommendationResponse.builder()
                 .recommendations(recommendations)
@@ -72,8 +144,28 @@ public class BookController {
                 .message(recommendations.isEmpty() ?
                         "Aucune recommandation trouvée" :
                         "Recommandations générées avec succès")
+                .timedOutSources(result.getTimedOutSources())
+                .failedSources(result.getFailedSources())
                 .build();
 
-        return ResponseEntity.ok(response);
+        // Réponse propre à l'utilisateur : revalidée à chaque fois, jamais partagée par un cache intermédiaire
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        if (result.getVersion() != null) {
+            ok.eTag(result.getVersion());
+        }
+        return ok.body(response);
+    }
+
+    // Variante en flux (SSE ou NDJSON selon Accept) : un classement partiel dès qu'une source répond,
+    // puis un message "final" avec le classement consolidé
+    @GetMapping(value = "/recommendations/{userId}/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<RecommendationUpdate> streamRecommendations(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        log.info("Stream recommendations for user: {}", userId);
+        return recommendationService.streamRecommendations(userId, limit)
+                .doOnNext(update -> update.setRecommendations(thumbnailService.withProxyUrls(update.getRecommendations())));
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,10 @@
 package net.cesi.minipro.booksuggestionapp.controller;
 
+import net.cesi.minipro.booksuggestionapp.dto.LibraryPage;
 import net.cesi.minipro.booksuggestionapp.dto.ReadingHistoryDTO;
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
 import net.cesi.minipro.booksuggestionapp.service.ReadingHistoryService;
+import net.cesi.minipro.booksuggestionapp.service.ThumbnailService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,16 +17,34 @@ import java.util.List;
 public class ReadingHistoryController {
 
     private final ReadingHistoryService readingHistoryService;
+    private final ThumbnailService thumbnailService;
 
     @Autowired
-    public ReadingHistoryController(ReadingHistoryService readingHistoryService) {
+    public ReadingHistoryController(ReadingHistoryService readingHistoryService, ThumbnailService thumbnailService) {
         this.readingHistoryService = readingHistoryService;
+        this.thumbnailService = thumbnailService;
     }
 
     @GetMapping
     public ResponseEntity<List<ReadingHistoryDTO>> getUserLibrary(@PathVariable Long userId) {
         List<ReadingHistoryDTO> library = readingHistoryService.getUserLibrary(userId);
-        return ResponseEntity.ok(library);
+        return ResponseEntity.ok(thumbnailService.withProxyUrlsInPlace(library));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<LibraryPage> getUserLibraryPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) ReadingStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            LibraryPage page = readingHistoryService.getUserLibraryPage(userId, status, cursor, size);
+            thumbnailService.withProxyUrlsInPlace(page.getItems());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
@@ -35,6 +56,7 @@ public class ReadingHistoryController {
                 userId,
                 request.getGoogleBookId()
         );
+        thumbnailService.withProxyUrlsInPlace(List.of(added));
         return ResponseEntity.ok(added);
     }
 
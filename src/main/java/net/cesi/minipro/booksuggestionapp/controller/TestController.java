@@ -1,6 +1,9 @@
 package net.cesi.minipro.booksuggestionapp.controller;
 
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.cesi.minipro.booksuggestionapp.service.BookSearchCache;
+import net.cesi.minipro.booksuggestionapp.service.GoogleBooksApiService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,6 +13,8 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/test")
@@ -18,6 +23,12 @@ public class TestController {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private BookSearchCache searchCache;
+
+    @Autowired
+    private GoogleBooksApiService googleBooksService;
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("✅ Application is running!");
@@ -38,4 +49,17 @@ public class TestController {
                     .body("❌ Connection failed: " + e.getMessage());
         }
     }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        CacheStats stats = searchCache.stats();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("entries", searchCache.size());
+        info.put("hits", stats.hitCount());
+        info.put("misses", stats.missCount());
+        info.put("hitRate", stats.hitRate());
+        info.put("evictions", stats.evictionCount());
+        info.put("upstreamCircuit", googleBooksService.circuitState());
+        return ResponseEntity.ok(info);
+    }
 }
\ No newline at end of file
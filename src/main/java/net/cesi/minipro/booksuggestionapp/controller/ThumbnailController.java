@@ -0,0 +1,82 @@
+package net.cesi.minipro.booksuggestionapp.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.cesi.minipro.booksuggestionapp.service.ThumbnailService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/thumbnails")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
+@Slf4j
+public class ThumbnailController {
+
+    // Attributs de requête de Tomcat pour l'envoi d'un fichier par sendfile (NIO / NIO2)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ThumbnailService thumbnailService;
+    private final String cacheControl;
+
+    public ThumbnailController(
+            ThumbnailService thumbnailService,
+            @Value("${thumbnails.max-age-days:30}") long maxAgeDays) {
+        this.thumbnailService = thumbnailService;
+        // Contenu adressé par empreinte : l'image d'un livre ne change pas, le navigateur la garde
+        this.cacheControl = CacheControl.maxAge(Duration.ofDays(maxAgeDays)).cachePublic().getHeaderValue();
+    }
+
+    @GetMapping("/{googleBookId}")
+    public void thumbnail(
+            @PathVariable String googleBookId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        Optional<ThumbnailService.Thumbnail> found = thumbnailService.get(googleBookId);
+        if (found.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        ThumbnailService.Thumbnail thumbnail = found.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + thumbnail.hash() + "\"")) {
+            return;
+        }
+
+        response.setContentType(thumbnail.contentType());
+        response.setContentLengthLong(thumbnail.size());
+
+        // Copie noyau du fichier vers la socket : par Tomcat après la requête si le connecteur le permet
+        // (le service garde le fichier évincé le temps de l'envoi), sinon par transferTo sur le flux de réponse
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, thumbnail.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, thumbnail.size());
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(thumbnail.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < thumbnail.size()) {
+                position += file.transferTo(position, thumbnail.size() - position, out);
+            }
+        }
+    }
+}
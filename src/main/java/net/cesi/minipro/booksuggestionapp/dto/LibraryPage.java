@@ -0,0 +1,19 @@
+package net.cesi.minipro.booksuggestionapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibraryPage {
+    private List<ReadingHistoryDTO> items;
+    // À renvoyer dans ?cursor= pour la page suivante ; null en fin de liste
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,6 +22,7 @@ public class ReadingHistoryDTO {
     private String title;
     private List<String> authors;
     private String thumbnailUrl;
+    private ReadingStatus status;
     private LocalDateTime addedAt;
 
 
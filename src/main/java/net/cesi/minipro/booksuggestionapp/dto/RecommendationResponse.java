@@ -15,4 +15,6 @@ public class RecommendationResponse {
     private List<BookDTO> recommendations;
     private int totalResults;
     private String message;
+    private List<String> timedOutSources;
+    private List<String> failedSources;
 }
\ No newline at end of file
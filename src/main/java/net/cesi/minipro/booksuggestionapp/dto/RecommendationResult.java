@@ -0,0 +1,27 @@
+package net.cesi.minipro.booksuggestionapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationResult {
+    private List<BookDTO> books;
+    private List<String> timedOutSources;
+    // Sources en erreur : la liste est incomplète, comme pour une source hors délai
+    private List<String> failedSources;
+    // ETag de la liste servie depuis RecommendationStore ; null si calculée à la demande
+    private String version;
+
+    public RecommendationResult(List<BookDTO> books, List<String> timedOutSources) {
+        this(books, timedOutSources, List.of(), null);
+    }
+
+    public RecommendationResult(List<BookDTO> books, List<String> timedOutSources, List<String> failedSources) {
+        this(books, timedOutSources, failedSources, null);
+    }
+}
@@ -0,0 +1,26 @@
+package net.cesi.minipro.booksuggestionapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Message du flux de recommandations : classement partiel après chaque source, puis classement final
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationUpdate {
+    public static final String PARTIAL = "partial";
+    public static final String FINAL = "final";
+
+    private String type;
+    private String source;
+    private int completedSources;
+    private int totalSources;
+    private List<BookDTO> recommendations;
+    private List<String> timedOutSources;
+    private List<String> failedSources;
+}
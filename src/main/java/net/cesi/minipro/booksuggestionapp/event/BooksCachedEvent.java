@@ -0,0 +1,25 @@
+package net.cesi.minipro.booksuggestionapp.event;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.util.List;
+
+// Publié quand des livres entrent dans le catalogue local (nouvelle insertion ou chargement au démarrage)
+public class BooksCachedEvent {
+
+    private final List<BookDTO> books;
+    private final boolean bootstrap;
+
+    public BooksCachedEvent(List<BookDTO> books, boolean bootstrap) {
+        this.books = List.copyOf(books);
+        this.bootstrap = bootstrap;
+    }
+
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+
+    public boolean isBootstrap() {
+        return bootstrap;
+    }
+}
@@ -0,0 +1,27 @@
+package net.cesi.minipro.booksuggestionapp.event;
+
+// Publié quand un livre est ajouté à la bibliothèque d'un utilisateur ou en est retiré
+public class LibraryChangedEvent {
+
+    private final Long userId;
+    private final Long bookId;
+    private final boolean added;
+
+    public LibraryChangedEvent(Long userId, Long bookId, boolean added) {
+        this.userId = userId;
+        this.bookId = bookId;
+        this.added = added;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public boolean isAdded() {
+        return added;
+    }
+}
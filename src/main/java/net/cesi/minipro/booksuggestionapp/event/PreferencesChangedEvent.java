@@ -0,0 +1,15 @@
+package net.cesi.minipro.booksuggestionapp.event;
+
+// Publié quand les préférences d'un utilisateur sont créées ou modifiées
+public class PreferencesChangedEvent {
+
+    private final Long userId;
+
+    public PreferencesChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
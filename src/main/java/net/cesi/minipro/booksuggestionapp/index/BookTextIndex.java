@@ -0,0 +1,219 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.event.BooksCachedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index inversé en mémoire sur le catalogue local, classement BM25
+@Component
+public class BookTextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_QUERY_TERMS = 32;
+
+    // Poids des champs dans la fréquence des termes
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<BookDTO> documents = new ArrayList<>();
+    private final Map<String, Integer> docIdsByGoogleId = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] docLengths = new int[1024];
+    private long totalLength;
+
+    @EventListener
+    public void onBooksCached(BooksCachedEvent event) {
+        addAll(event.getBooks());
+    }
+
+    public void addAll(Collection<BookDTO> books) {
+        lock.writeLock().lock();
+        try {
+            for (BookDTO book : books) {
+                addLocked(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Livres indexés, dans l'ordre d'ajout
+    List<BookDTO> documents() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(documents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDF (formule BM25) de chaque terme sur le catalogue actuel
+    public float[] inverseDocumentFrequencies(List<String> terms) {
+        float[] idf = new float[terms.size()];
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            for (int i = 0; i < idf.length; i++) {
+                Postings list = postings.get(terms.get(i));
+                int df = list != null ? list.size : 0;
+                idf[i] = (float) Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            return idf;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Retourne les livres qui contiennent au moins 75 % des termes de la requête, par score BM25 décroissant
+    public List<BookDTO> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) return List.of();
+        if (terms.size() > MAX_QUERY_TERMS) terms = terms.subList(0, MAX_QUERY_TERMS);
+
+        int minMatchedTerms = Math.max(1, (int) Math.ceil(terms.size() * 0.75));
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) return List.of();
+
+            Postings[] lists = new Postings[terms.size()];
+            float[] idfs = new float[terms.size()];
+            int listCount = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) continue;
+                lists[listCount] = list;
+                idfs[listCount] = (float) Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5));
+                listCount++;
+            }
+            if (listCount < minMatchedTerms) return List.of();
+
+            // Parcours document par document des listes triées par docId : seuls les documents qui
+            // contiennent un terme de la requête sont visités, le coût suit la taille des postings
+            float avgLength = (float) totalLength / docCount;
+            int[] cursors = new int[listCount];
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1);
+            while (true) {
+                int doc = Integer.MAX_VALUE;
+                for (int t = 0; t < listCount; t++) {
+                    if (cursors[t] < lists[t].size) doc = Math.min(doc, lists[t].docIds[cursors[t]]);
+                }
+                if (doc == Integer.MAX_VALUE) break;
+
+                float score = 0;
+                int matched = 0;
+                float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                for (int t = 0; t < listCount; t++) {
+                    Postings list = lists[t];
+                    if (cursors[t] < list.size && list.docIds[cursors[t]] == doc) {
+                        int tf = list.frequencies[cursors[t]++];
+                        score += idfs[t] * tf * (K1 + 1) / (tf + norm);
+                        matched++;
+                    }
+                }
+
+                // Tas borné : on ne garde que les `limit` meilleurs
+                if (matched < minMatchedTerms) continue;
+                if (top.size() == limit && score <= top.peek().score()) continue;
+                top.offer(new ScoredDoc(doc, score));
+                if (top.size() > limit) top.poll();
+            }
+
+            BookDTO[] result = new BookDTO[top.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = documents.get(top.poll().doc()).toBuilder().build();
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(BookDTO book) {
+        if (book.getGoogleBookId() == null || docIdsByGoogleId.containsKey(book.getGoogleBookId())) return;
+
+        int doc = documents.size();
+        // Copie : les DTO partagés peuvent être modifiés ailleurs (score de recommandation)
+        documents.add(book.toBuilder().recommendationScore(null).build());
+        docIdsByGoogleId.put(book.getGoogleBookId(), doc);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        length += collect(frequencies, book.getTitle(), TITLE_WEIGHT);
+        length += collect(frequencies, book.getAuthors(), AUTHOR_WEIGHT);
+        length += collect(frequencies, book.getCategories(), CATEGORY_WEIGHT);
+        length += collect(frequencies, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(doc, entry.getValue());
+        }
+
+        if (doc == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+        docLengths[doc] = length;
+        totalLength += length;
+    }
+
+    private static int collect(Map<String, Integer> frequencies, List<String> values, int weight) {
+        if (values == null) return 0;
+        int length = 0;
+        for (String value : values) {
+            length += collect(frequencies, value, weight);
+        }
+        return length;
+    }
+
+    private static int collect(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = Tokenizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    // Plus petit en tête : score croissant, puis docId décroissant (à score égal, le premier indexé gagne)
+    private record ScoredDoc(int doc, float score) implements Comparable<ScoredDoc> {
+        @Override
+        public int compareTo(ScoredDoc other) {
+            return score != other.score ? Float.compare(score, other.score) : Integer.compare(other.doc, doc);
+        }
+    }
+
+    // Liste de postings triée par docId (les documents sont ajoutés dans l'ordre)
+    private static final class Postings {
+        private int[] docIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int doc, int frequency) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docIds[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Vecteur de caractéristiques hachées (feature hashing) d'un livre : TF-IDF du texte,
+// catégories (chaque niveau de "Fiction / Fantasy / Epic") et auteurs, chaque bloc normalisé puis pondéré
+final class BookVectorizer {
+
+    static final int DIMENSIONS = 128;
+
+    private static final float TEXT_WEIGHT = 1.0f;
+    private static final float CATEGORY_WEIGHT = 0.8f;
+    private static final float AUTHOR_WEIGHT = 0.6f;
+    private static final int TITLE_TF = 2;
+
+    private final BookTextIndex textIndex;
+
+    BookVectorizer(BookTextIndex textIndex) {
+        this.textIndex = textIndex;
+    }
+
+    // Vecteur unitaire, ou null si le livre n'a aucune caractéristique
+    float[] vectorize(BookDTO book) {
+        float[] vector = new float[DIMENSIONS];
+        float[] block = new float[DIMENSIONS];
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : Tokenizer.tokenize(book.getTitle())) {
+            frequencies.merge(token, TITLE_TF, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(book.getDescription())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        if (!frequencies.isEmpty()) {
+            List<String> terms = new ArrayList<>(frequencies.keySet());
+            float[] idf = textIndex.inverseDocumentFrequencies(terms);
+            for (int i = 0; i < idf.length; i++) {
+                String term = terms.get(i);
+                hash(block, term, (float) (1 + Math.log(frequencies.get(term))) * idf[i]);
+            }
+            accumulate(vector, block, TEXT_WEIGHT);
+        }
+
+        if (book.getCategories() != null) {
+            for (String category : book.getCategories()) {
+                StringBuilder path = new StringBuilder("c:");
+                for (String level : category.split("/")) {
+                    String key = Tokenizer.foldKey(level.trim());
+                    if (key.isEmpty()) continue;
+                    path.append('/').append(key);
+                    hash(block, path.toString(), 1);
+                }
+            }
+            accumulate(vector, block, CATEGORY_WEIGHT);
+        }
+
+        if (book.getAuthors() != null) {
+            for (String author : book.getAuthors()) {
+                String key = Tokenizer.foldKey(author);
+                if (!key.isEmpty()) hash(block, "a:" + key, 1);
+            }
+            accumulate(vector, block, AUTHOR_WEIGHT);
+        }
+
+        return normalize(vector) ? vector : null;
+    }
+
+    // Indice et signe tirés de deux parties du hash : les collisions se compensent en moyenne
+    private static void hash(float[] block, String feature, float weight) {
+        int h = feature.hashCode() * 0x9E3779B9;
+        h ^= h >>> 15;
+        int index = h & (DIMENSIONS - 1);
+        block[index] += (h & 0x80000000) == 0 ? weight : -weight;
+    }
+
+    // Ajoute le bloc normalisé et pondéré, puis le remet à zéro
+    private static void accumulate(float[] vector, float[] block, float weight) {
+        if (normalize(block)) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] += block[i] * weight;
+            }
+        }
+        Arrays.fill(block, 0);
+    }
+
+    private static boolean normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) return false;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,385 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Instantané binaire du catalogue et du graphe de similarité, relu par projection mémoire (mmap) au démarrage.
+// Disposition : en-tête | lignes de taille fixe | listes d'identifiants auteurs/catégories | dictionnaires |
+// graphe HNSW | tas de chaînes UTF-8. Les chaînes sont des paires (position dans le tas, longueur).
+// Deux projections : la structure (en-tête à graphe) et le tas, chacune limitée à 2 Go (un MappedByteBuffer
+// est adressé par un int). Le tas, qui grossit avec les descriptions, ne partage donc pas la limite de la structure
+// (environ 2 Go / 72 octets par ligne, soit plusieurs millions de livres avec le graphe).
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 80;
+
+    // 6 chaînes (googleBookId, title, description, thumbnailUrl, publishedDate, language),
+    // averageRating, pageCount, début des listes, nombre d'auteurs, nombre de catégories
+    private static final int ROW_SIZE = 6 * 8 + 8 + 4 + 4 + 2 + 2;
+    private static final int NO_PAGE_COUNT = Integer.MIN_VALUE;
+    private static final int MAX_TERMS = Short.MAX_VALUE;
+
+    private final MappedByteBuffer buffer;
+    private final MappedByteBuffer heap;
+    private final int bookCount;
+    private final int graphNodeCount;
+    private final long watermark;
+    private final long writtenAt;
+    private final int listsOffset;
+    private final int graphOffset;
+    private final String[] authors;
+    private final String[] categories;
+
+    private CatalogSnapshot(MappedByteBuffer buffer, MappedByteBuffer heap) {
+        this.buffer = buffer;
+        this.heap = heap;
+        this.bookCount = buffer.getInt(8);
+        int authorCount = buffer.getInt(12);
+        int categoryCount = buffer.getInt(16);
+        this.graphNodeCount = buffer.getInt(20);
+        this.watermark = buffer.getLong(24);
+        this.writtenAt = buffer.getLong(32);
+        this.listsOffset = (int) buffer.getLong(40);
+        int dictionaryOffset = (int) buffer.getLong(48);
+        this.graphOffset = (int) buffer.getLong(56);
+
+        this.authors = new String[authorCount];
+        this.categories = new String[categoryCount];
+        int position = dictionaryOffset;
+        for (int i = 0; i < authorCount; i++, position += 8) {
+            authors[i] = string(position);
+        }
+        for (int i = 0; i < categoryCount; i++, position += 8) {
+            categories[i] = string(position);
+        }
+    }
+
+    public static CatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) break;
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a catalog snapshot");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported catalog snapshot version " + header.getInt(4));
+            }
+            // Fichier tronqué (écriture interrompue, disque plein) : refusé plutôt que relu à moitié
+            if (header.getLong(72) != size) {
+                throw new IOException("Truncated catalog snapshot");
+            }
+            long heapOffset = header.getLong(64);
+            if (heapOffset < HEADER_SIZE || heapOffset > size) throw new IOException("Corrupt catalog snapshot header");
+            if (heapOffset > Integer.MAX_VALUE || size - heapOffset > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot too large to map: " + size + " bytes");
+            }
+            // Les projections restent valides après la fermeture du canal
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, heapOffset),
+                    channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, size - heapOffset));
+        }
+    }
+
+    public int size() {
+        return bookCount;
+    }
+
+    // cachedAt (epoch ms) jusqu'où la table books est couverte par l'instantané
+    public long watermark() {
+        return watermark;
+    }
+
+    public long writtenAt() {
+        return writtenAt;
+    }
+
+    public BookDTO book(int row) {
+        int position = HEADER_SIZE + row * ROW_SIZE;
+        double rating = buffer.getDouble(position + 48);
+        int pageCount = buffer.getInt(position + 56);
+        int listStart = buffer.getInt(position + 60);
+        int authorCount = buffer.getShort(position + 64);
+        int categoryCount = buffer.getShort(position + 66);
+        return BookDTO.builder()
+                .googleBookId(string(position))
+                .title(string(position + 8))
+                .description(string(position + 16))
+                .thumbnailUrl(string(position + 24))
+                .publishedDate(string(position + 32))
+                .language(string(position + 40))
+                .averageRating(Double.isNaN(rating) ? null : rating)
+                .pageCount(pageCount == NO_PAGE_COUNT ? null : pageCount)
+                .authors(terms(authors, listStart, authorCount))
+                .categories(terms(categories, listStart + authorCount, categoryCount))
+                .build();
+    }
+
+    public BookDTO[] books() {
+        BookDTO[] books = new BookDTO[bookCount];
+        for (int row = 0; row < bookCount; row++) {
+            books[row] = book(row);
+        }
+        return books;
+    }
+
+    // Recharge le graphe HNSW sans recalculer les voisinages ; books = books() de cet instantané
+    public boolean restoreSimilarityGraph(SimilarBooksIndex index, BookDTO[] books) {
+        if (graphNodeCount == 0) return false;
+        int position = graphOffset;
+        int dimensions = buffer.getInt(position);
+        if (dimensions != BookVectorizer.DIMENSIONS) return false;
+        int entryNode = buffer.getInt(position + 4);
+        int entryLevel = buffer.getInt(position + 8);
+        position += 12;
+
+        List<BookDTO> payloads = new ArrayList<>(graphNodeCount);
+        float[][] vectors = new float[graphNodeCount][];
+        int[][][] links = new int[graphNodeCount][][];
+        for (int node = 0; node < graphNodeCount; node++) {
+            payloads.add(books[buffer.getInt(position)]);
+            int level = buffer.getInt(position + 4);
+            position += 8;
+
+            vectors[node] = new float[dimensions];
+            buffer.slice(position, dimensions * 4).asFloatBuffer().get(vectors[node]);
+            position += dimensions * 4;
+
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                int count = buffer.getInt(position);
+                links[node][l] = new int[count];
+                buffer.slice(position + 4, count * 4).asIntBuffer().get(links[node][l]);
+                position += 4 + count * 4;
+            }
+        }
+        return index.restore(new HnswGraph.Export<>(payloads, vectors, links, entryNode, entryLevel));
+    }
+
+    // Écrit dans un fichier temporaire puis le renomme : un instantané lisible reste toujours en place.
+    // Retourne le nombre de livres écrits.
+    public static int write(Path file, BookTextIndex textIndex, SimilarBooksIndex similarIndex, long watermark)
+            throws IOException {
+        // Graphe d'abord : ses livres sont déjà dans l'index texte (sinon ajoutés en fin de liste)
+        HnswGraph.Export<BookDTO> graph = similarIndex.exportGraph();
+        List<BookDTO> books = textIndex.documents();
+        Map<String, Integer> rows = new HashMap<>(books.size() * 2);
+        for (int row = 0; row < books.size(); row++) {
+            rows.put(books.get(row).getGoogleBookId(), row);
+        }
+        int[] graphRows = new int[graph.payloads().size()];
+        for (int node = 0; node < graphRows.length; node++) {
+            BookDTO payload = graph.payloads().get(node);
+            Integer row = rows.get(payload.getGoogleBookId());
+            if (row == null) {
+                row = books.size();
+                books.add(payload);
+                rows.put(payload.getGoogleBookId(), row);
+            }
+            graphRows[node] = row;
+        }
+
+        // Dictionnaires : chaque auteur et catégorie distinct n'est stocké qu'une fois
+        Map<String, Integer> authorIds = new LinkedHashMap<>();
+        Map<String, Integer> categoryIds = new LinkedHashMap<>();
+        long listEntries = 0;
+        for (BookDTO book : books) {
+            listEntries += register(authorIds, book.getAuthors()) + register(categoryIds, book.getCategories());
+        }
+
+        long listsOffset = HEADER_SIZE + (long) books.size() * ROW_SIZE;
+        long dictionaryOffset = listsOffset + listEntries * 4;
+        long graphOffset = dictionaryOffset + (long) (authorIds.size() + categoryIds.size()) * 8;
+        long graphSize = graphRows.length == 0 ? 0 : 12;
+        for (int node = 0; node < graphRows.length; node++) {
+            graphSize += 8 + graph.vectors()[node].length * 4L;
+            for (int[] level : graph.links()[node]) {
+                graphSize += 4 + level.length * 4L;
+            }
+        }
+        long heapOffset = graphOffset + graphSize;
+        if (heapOffset > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a snapshot: " + heapOffset + " bytes before the string heap");
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path heapFile = file.resolveSibling(file.getFileName() + ".heap");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             StringHeap heap = new StringHeap(heapFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_SIZE]);
+
+            int listStart = 0;
+            for (BookDTO book : books) {
+                heap.write(out, book.getGoogleBookId());
+                heap.write(out, book.getTitle());
+                heap.write(out, book.getDescription());
+                heap.write(out, book.getThumbnailUrl());
+                heap.write(out, book.getPublishedDate());
+                heap.write(out, book.getLanguage());
+                out.writeDouble(book.getAverageRating() != null ? book.getAverageRating() : Double.NaN);
+                out.writeInt(book.getPageCount() != null ? book.getPageCount() : NO_PAGE_COUNT);
+                int authorCount = count(book.getAuthors());
+                int categoryCount = count(book.getCategories());
+                out.writeInt(listStart);
+                out.writeShort(authorCount);
+                out.writeShort(categoryCount);
+                listStart += authorCount + categoryCount;
+            }
+            for (BookDTO book : books) {
+                writeIds(out, authorIds, book.getAuthors());
+                writeIds(out, categoryIds, book.getCategories());
+            }
+            for (String author : authorIds.keySet()) {
+                heap.write(out, author);
+            }
+            for (String category : categoryIds.keySet()) {
+                heap.write(out, category);
+            }
+            if (graphRows.length > 0) {
+                out.writeInt(BookVectorizer.DIMENSIONS);
+                out.writeInt(graph.entryNode());
+                out.writeInt(graph.entryLevel());
+                for (int node = 0; node < graphRows.length; node++) {
+                    int[][] levels = graph.links()[node];
+                    out.writeInt(graphRows[node]);
+                    out.writeInt(levels.length - 1);
+                    for (float value : graph.vectors()[node]) {
+                        out.writeFloat(value);
+                    }
+                    for (int[] level : levels) {
+                        out.writeInt(level.length);
+                        for (int neighbor : level) {
+                            out.writeInt(neighbor);
+                        }
+                    }
+                }
+            }
+            out.flush();
+
+            long length = heapOffset + heap.size();
+            heap.appendTo(channel, heapOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(books.size()).putInt(authorIds.size()).putInt(categoryIds.size()).putInt(graphRows.length)
+                    .putLong(watermark).putLong(System.currentTimeMillis())
+                    .putLong(listsOffset).putLong(dictionaryOffset).putLong(graphOffset).putLong(heapOffset)
+                    .putLong(length)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } finally {
+            Files.deleteIfExists(heapFile);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return books.size();
+    }
+
+    private String string(int position) {
+        int offset = buffer.getInt(position);
+        if (offset < 0) return null;
+        byte[] bytes = new byte[buffer.getInt(position + 4)];
+        heap.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Les libellés viennent du dictionnaire : une seule instance String par auteur ou catégorie
+    private List<String> terms(String[] dictionary, int start, int count) {
+        if (count == 0) return List.of();
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = dictionary[buffer.getInt(listsOffset + (start + i) * 4)];
+        }
+        return List.of(values);
+    }
+
+    private static int count(List<String> values) {
+        return values == null ? 0 : Math.min(values.size(), MAX_TERMS);
+    }
+
+    private static int register(Map<String, Integer> dictionary, List<String> values) {
+        int count = count(values);
+        for (int i = 0; i < count; i++) {
+            dictionary.putIfAbsent(values.get(i), dictionary.size());
+        }
+        return count;
+    }
+
+    private static void writeIds(DataOutputStream out, Map<String, Integer> dictionary, List<String> values) throws IOException {
+        int count = count(values);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(dictionary.get(values.get(i)));
+        }
+    }
+
+    // Tas de chaînes écrit au fil de l'eau dans un fichier à part, recopié en fin d'instantané
+    private static final class StringHeap implements AutoCloseable {
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private long size;
+
+        StringHeap(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        }
+
+        // Écrit la référence (position, longueur) dans out et la chaîne dans le tas ; -1 pour null
+        void write(DataOutputStream refs, String value) throws IOException {
+            if (value == null) {
+                refs.writeInt(-1);
+                refs.writeInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > Integer.MAX_VALUE) throw new IOException("Catalog snapshot string heap exceeds 2 GB");
+            refs.writeInt((int) size);
+            refs.writeInt(bytes.length);
+            out.write(bytes);
+            size += bytes.length;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void appendTo(FileChannel target, long position) throws IOException {
+            out.flush();
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, target.position(position + copied));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
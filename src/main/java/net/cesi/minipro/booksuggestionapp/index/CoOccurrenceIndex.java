@@ -0,0 +1,397 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.event.LibraryChangedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Co-occurrences livre-livre issues des bibliothèques (reading_history) : "les lecteurs de X ont aussi lu".
+// Base figée au format CSR (lignes triées) + deltas creux par livre, fusionnés périodiquement.
+// Similarité cosinus : co(x, y) / sqrt(lecteurs(x) * lecteurs(y)).
+@Component
+public class CoOccurrenceIndex {
+
+    // Au-delà, les deltas sont fusionnés dans la base CSR
+    private static final int COMPACT_THRESHOLD = 50_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Livres : identifiant en base -> numéro dense
+    private final LongIntHashMap itemsByBook = new LongIntHashMap(1024);
+    private long[] bookIds = new long[1024];
+    private int[] readers = new int[1024];
+    private int itemCount;
+
+    // Bibliothèques : identifiant utilisateur -> liste de numéros de livres
+    private final LongIntHashMap usersById = new LongIntHashMap(1024);
+    private int[][] libraries = new int[1024][];
+    private int[] librarySizes = new int[1024];
+    // Par bibliothèque : numéro de livre -> position (+1) dans la liste, 0 = absent (test en O(1))
+    private IntIntHashMap[] libraryPositions = new IntIntHashMap[1024];
+    private int userCount;
+
+    // Base CSR : voisins de l'item i dans neighbors[offsets[i] .. offsets[i + 1]), triés
+    private int[] offsets = {0};
+    private int[] neighbors = new int[0];
+    private int[] counts = new int[0];
+    private int baseItems;
+
+    // Variations depuis la dernière fusion (null = aucune)
+    private IntIntHashMap[] deltas = new IntIntHashMap[1024];
+    private int deltaEntries;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        if (event.isAdded()) {
+            add(event.getUserId(), event.getBookId());
+        } else {
+            remove(event.getUserId(), event.getBookId());
+        }
+    }
+
+    // Idempotent : un livre déjà présent dans la bibliothèque est ignoré
+    public void add(long userId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            int user = userSlot(userId);
+            int item = itemFor(bookId);
+            int[] library = libraries[user];
+            int size = librarySizes[user];
+            IntIntHashMap positions = libraryPositions[user];
+            if (positions.get(item) > 0) return;
+
+            for (int i = 0; i < size; i++) {
+                bump(item, library[i], 1);
+                bump(library[i], item, 1);
+            }
+            if (size == library.length) {
+                library = libraries[user] = Arrays.copyOf(library, size * 2);
+            }
+            library[size] = item;
+            librarySizes[user] = size + 1;
+            positions.add(item, size + 1);
+            readers[item]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    public void remove(long userId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            int user = usersById.get(userId, -1);
+            int item = itemsByBook.get(bookId, -1);
+            if (user < 0 || item < 0) return;
+
+            int[] library = libraries[user];
+            int size = librarySizes[user];
+            IntIntHashMap positions = libraryPositions[user];
+            int position = positions.get(item) - 1;
+            if (position < 0) return;
+
+            // Le dernier livre prend la place libérée
+            int last = library[size - 1];
+            library[position] = last;
+            positions.add(last, position + 1 - size);
+            positions.add(item, -positions.get(item));
+            librarySizes[user] = --size;
+            for (int i = 0; i < size; i++) {
+                bump(item, library[i], -1);
+                bump(library[i], item, -1);
+            }
+            readers[item]--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    // Livres les plus lus par les lecteurs de bookId, par similarité décroissante
+    public List<Neighbor> alsoRead(long bookId, int k) {
+        if (k <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            int item = itemsByBook.get(bookId, -1);
+            if (item < 0 || readers[item] == 0) return List.of();
+
+            TopK top = new TopK(k);
+            forEachNeighbor(item, (neighbor, count) -> top.offer(neighbor, similarity(item, neighbor, count)));
+            return top.toNeighbors(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Somme des similarités avec les livres de la bibliothèque, livres déjà possédés exclus
+    public List<Neighbor> recommendFor(long userId, int k) {
+        if (k <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            int user = usersById.get(userId, -1);
+            if (user < 0 || librarySizes[user] == 0) return List.of();
+
+            int[] library = libraries[user];
+            int size = librarySizes[user];
+            IntIntHashMap positions = libraryPositions[user];
+
+            ScoreAccumulator accumulator = new ScoreAccumulator();
+            for (int i = 0; i < size; i++) {
+                int source = library[i];
+                forEachNeighbor(source, (neighbor, count) ->
+                        accumulator.add(neighbor, similarity(source, neighbor, count)));
+            }
+
+            TopK top = new TopK(k);
+            for (int i = 0; i < accumulator.size; i++) {
+                if (positions.get(accumulator.items[i]) == 0) {
+                    top.offer(accumulator.items[i], accumulator.scores[i]);
+                }
+            }
+            return top.toNeighbors(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int itemCount() {
+        lock.readLock().lock();
+        try {
+            return itemCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.co-reading.compact-interval-ms:60000}")
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (deltaEntries > 0 || baseItems != itemCount) compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deltaEntries < COMPACT_THRESHOLD) return;
+        lock.writeLock().lock();
+        try {
+            if (deltaEntries >= COMPACT_THRESHOLD) compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reconstruit la base CSR ; chaque ligne est triée via des paires (voisin, compte) packées en long
+    private void compactLocked() {
+        int[] newOffsets = new int[itemCount + 1];
+        int[] newNeighbors = new int[Math.max(16, neighbors.length + deltaEntries)];
+        int[] newCounts = new int[newNeighbors.length];
+        RowBuffer row = new RowBuffer();
+        int total = 0;
+
+        for (int item = 0; item < itemCount; item++) {
+            row.size = 0;
+            forEachNeighbor(item, row::add);
+            Arrays.sort(row.values, 0, row.size);
+
+            if (total + row.size > newNeighbors.length) {
+                int capacity = Math.max(newNeighbors.length * 2, total + row.size);
+                newNeighbors = Arrays.copyOf(newNeighbors, capacity);
+                newCounts = Arrays.copyOf(newCounts, capacity);
+            }
+            for (int i = 0; i < row.size; i++) {
+                newNeighbors[total] = (int) (row.values[i] >>> 32);
+                newCounts[total] = (int) row.values[i];
+                total++;
+            }
+            newOffsets[item + 1] = total;
+        }
+
+        offsets = newOffsets;
+        neighbors = Arrays.copyOf(newNeighbors, total);
+        counts = Arrays.copyOf(newCounts, total);
+        baseItems = itemCount;
+        Arrays.fill(deltas, null);
+        deltaEntries = 0;
+    }
+
+    // Parcourt les voisins de item (base + deltas) dont le compte est positif, sans allocation
+    private void forEachNeighbor(int item, NeighborConsumer consumer) {
+        IntIntHashMap delta = item < deltas.length ? deltas[item] : null;
+        if (item < baseItems) {
+            for (int i = offsets[item]; i < offsets[item + 1]; i++) {
+                int count = counts[i] + (delta != null ? delta.get(neighbors[i]) : 0);
+                if (count > 0) consumer.accept(neighbors[i], count);
+            }
+        }
+        if (delta == null) return;
+        for (int slot = 0; slot < delta.capacity(); slot++) {
+            int neighbor = delta.keyAt(slot);
+            if (neighbor < 0 || delta.valueAt(slot) <= 0) continue;
+            // Déjà vu dans la base
+            if (item < baseItems && Arrays.binarySearch(neighbors, offsets[item], offsets[item + 1], neighbor) >= 0) continue;
+            consumer.accept(neighbor, delta.valueAt(slot));
+        }
+    }
+
+    private double similarity(int item, int neighbor, int count) {
+        return count / Math.sqrt((double) readers[item] * readers[neighbor]);
+    }
+
+    private void bump(int item, int neighbor, int delta) {
+        IntIntHashMap map = deltas[item];
+        if (map == null) {
+            map = deltas[item] = new IntIntHashMap(8);
+        }
+        int before = map.size();
+        map.add(neighbor, delta);
+        deltaEntries += map.size() - before;
+    }
+
+    private int itemFor(long bookId) {
+        int item = itemsByBook.get(bookId, -1);
+        if (item >= 0) return item;
+
+        item = itemCount++;
+        if (item == bookIds.length) {
+            bookIds = Arrays.copyOf(bookIds, item * 2);
+            readers = Arrays.copyOf(readers, item * 2);
+            deltas = Arrays.copyOf(deltas, item * 2);
+        }
+        bookIds[item] = bookId;
+        itemsByBook.put(bookId, item);
+        return item;
+    }
+
+    private int userSlot(long userId) {
+        int user = usersById.get(userId, -1);
+        if (user >= 0) return user;
+
+        user = userCount++;
+        if (user == libraries.length) {
+            libraries = Arrays.copyOf(libraries, user * 2);
+            librarySizes = Arrays.copyOf(librarySizes, user * 2);
+            libraryPositions = Arrays.copyOf(libraryPositions, user * 2);
+        }
+        libraries[user] = new int[4];
+        libraryPositions[user] = new IntIntHashMap(4);
+        usersById.put(userId, user);
+        return user;
+    }
+
+    @FunctionalInterface
+    private interface NeighborConsumer {
+        void accept(int neighbor, int count);
+    }
+
+    public record Neighbor(long bookId, double score) {
+    }
+
+    // Paires (voisin, compte) packées en long : le tri par voisin se fait sur un long[]
+    private static final class RowBuffer {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(int neighbor, int count) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = ((long) neighbor << 32) | count;
+        }
+    }
+
+    // Accumulateur creux : numéro d'item -> position (+1) dans les tableaux de scores
+    private static final class ScoreAccumulator {
+        private final IntIntHashMap positions = new IntIntHashMap(64);
+        private int[] items = new int[64];
+        private double[] scores = new double[64];
+        private int size;
+
+        void add(int item, double score) {
+            int position = positions.get(item) - 1;
+            if (position < 0) {
+                position = size++;
+                positions.add(item, position + 1);
+                if (position == items.length) {
+                    items = Arrays.copyOf(items, position * 2);
+                    scores = Arrays.copyOf(scores, position * 2);
+                }
+                items[position] = item;
+            }
+            scores[position] += score;
+        }
+    }
+
+    // Tas min borné sur tableaux primitifs
+    private static final class TopK {
+        private final int[] items;
+        private final double[] scores;
+        private int size;
+
+        TopK(int k) {
+            items = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int item, double score) {
+            if (size < items.length) {
+                items[size] = item;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                items[0] = item;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Neighbor> toNeighbors(long[] bookIds) {
+            Neighbor[] result = new Neighbor[size];
+            while (size > 0) {
+                result[size - 1] = new Neighbor(bookIds[items[0]], scores[0]);
+                size--;
+                items[0] = items[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && scores[left] < scores[smallest]) smallest = left;
+                if (right < size && scores[right] < scores[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int item = items[a];
+            items[a] = items[b];
+            items[b] = item;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
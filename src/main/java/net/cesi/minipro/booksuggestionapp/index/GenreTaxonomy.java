@@ -0,0 +1,296 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Taxonomie des genres : identifiants canoniques, alias, variantes de recherche Google Books.
+// Les textes sont résolus en masque de bits (un bit par genre) via un automate Aho-Corasick ;
+// un alias ne compte que comme mot entier ("verse" ne reconnaît pas "Universe").
+@Component
+public class GenreTaxonomy {
+
+    private static final int MAX_CACHED_CATEGORIES = 10_000;
+
+    private static final List<Genre> GENRES = List.of(
+            new Genre("Self-Help",
+                    List.of("self-help", "self help", "personal development", "self improvement", "motivational"),
+                    List.of("Personal Development", "Self Improvement", "Motivational")),
+            new Genre("Business",
+                    List.of("business", "economics", "entrepreneurship", "management", "leadership"),
+                    List.of("Business & Economics", "Entrepreneurship", "Management", "Leadership")),
+            new Genre("Science Fiction",
+                    List.of("sci-fi", "science fiction", "speculative fiction", "cyberpunk", "space opera"),
+                    List.of("Sci-Fi", "Speculative Fiction", "Cyberpunk", "Space Opera")),
+            new Genre("Fantasy",
+                    List.of("fantasy"),
+                    List.of("Epic Fantasy", "Urban Fantasy", "Magic", "Wizards")),
+            new Genre("Mystery",
+                    List.of("mystery", "detective", "crime", "suspense", "whodunit"),
+                    List.of("Detective", "Crime", "Suspense", "Whodunit")),
+            new Genre("Thriller",
+                    List.of("thriller", "thrillers", "suspense", "action", "espionage"),
+                    List.of("Suspense", "Action", "Espionage", "Psychological Thriller")),
+            new Genre("Romance",
+                    List.of("romance", "love stories"),
+                    List.of("Love Stories", "Contemporary Romance", "Romantic Comedy")),
+            new Genre("Horror",
+                    List.of("horror"),
+                    List.of("Scary", "Supernatural", "Gothic")),
+            new Genre("Biography",
+                    List.of("biography", "memoir", "autobiography"),
+                    List.of("Memoir", "Autobiography", "Life Stories")),
+            new Genre("History",
+                    List.of("history", "historical"),
+                    List.of("Historical", "World History", "Ancient History")),
+            new Genre("Philosophy",
+                    List.of("philosophy"),
+                    List.of("Ethics", "Logic", "Metaphysics", "Existentialism")),
+            new Genre("Poetry",
+                    List.of("poetry", "poems", "verse"),
+                    List.of("Poems", "Verse", "Sonnets"))
+    );
+
+    private final Map<String, Genre> genresByName = new HashMap<>();
+    private final AhoCorasick matcher;
+    private final Map<String, ResolvedGenre> resolved = new ConcurrentHashMap<>();
+
+    public GenreTaxonomy() {
+        Map<String, Long> aliases = new LinkedHashMap<>();
+        for (int id = 0; id < GENRES.size(); id++) {
+            Genre genre = GENRES.get(id);
+            genresByName.put(genre.name.toLowerCase(Locale.ROOT), genre);
+            for (String alias : genre.aliases) {
+                aliases.merge(alias, 1L << id, (a, b) -> a | b);
+            }
+        }
+        this.matcher = new AhoCorasick(aliases);
+    }
+
+    public List<String> genreNames() {
+        List<String> names = new ArrayList<>(GENRES.size());
+        for (Genre genre : GENRES) {
+            names.add(genre.name);
+        }
+        return names;
+    }
+
+    // Variantes à interroger sur Google Books pour un genre (liste vide si genre inconnu)
+    public List<String> searchVariants(String genre) {
+        if (genre == null) return List.of();
+        Genre known = genresByName.get(genre.trim().toLowerCase(Locale.ROOT));
+        return known != null ? known.searchVariants : List.of();
+    }
+
+    // Texte normalisé + genres reconnus ; mis en cache car les catégories Google Books se répètent
+    public ResolvedGenre resolve(String text) {
+        ResolvedGenre cached = resolved.get(text);
+        if (cached != null) return cached;
+
+        String normalized = text.toLowerCase(Locale.ROOT).trim();
+        ResolvedGenre result = new ResolvedGenre(normalized, matcher.match(normalized));
+        if (resolved.size() < MAX_CACHED_CATEGORIES) {
+            resolved.put(text, result);
+        }
+        return result;
+    }
+
+    public GenreSet compile(List<String> genres) {
+        ResolvedGenre[] entries = new ResolvedGenre[genres.size()];
+        long bits = 0;
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = resolve(genres.get(i));
+            bits |= entries[i].bits;
+        }
+        return new GenreSet(entries, bits);
+    }
+
+    public static final class ResolvedGenre {
+        private final String normalized;
+        private final long bits;
+
+        ResolvedGenre(String normalized, long bits) {
+            this.normalized = normalized;
+            this.bits = bits;
+        }
+
+        public String normalized() {
+            return normalized;
+        }
+
+        public long bits() {
+            return bits;
+        }
+    }
+
+    // Genres favoris d'un utilisateur, compilés une fois par requête
+    public static final class GenreSet {
+        private final ResolvedGenre[] genres;
+        private final long bits;
+
+        GenreSet(ResolvedGenre[] genres, long bits) {
+            this.genres = genres;
+            this.bits = bits;
+        }
+
+        // Même genre canonique, ou l'un des libellés contient l'autre
+        public boolean matches(ResolvedGenre category) {
+            if ((category.bits & bits) != 0) return true;
+            String cat = category.normalized;
+            for (ResolvedGenre genre : genres) {
+                if (cat.contains(genre.normalized) || genre.normalized.contains(cat)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean matchesText(String text) {
+            for (ResolvedGenre genre : genres) {
+                if (containsIgnoreCase(text, genre.normalized)) return true;
+            }
+            return false;
+        }
+    }
+
+    public static boolean containsIgnoreCase(String haystack, String needle) {
+        int max = haystack.length() - needle.length();
+        for (int i = 0; i <= max; i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+
+    private static final class Genre {
+        private final String name;
+        private final List<String> aliases;
+        private final List<String> searchVariants;
+
+        Genre(String name, List<String> aliases, List<String> searchVariants) {
+            this.name = name;
+            this.aliases = aliases;
+            this.searchVariants = searchVariants;
+        }
+    }
+
+    // Automate Aho-Corasick figé : transitions triées par caractère, sorties en masque de bits.
+    // Chaque sortie garde la longueur de son motif pour vérifier les limites de mot autour de l'occurrence.
+    static final class AhoCorasick {
+        private final char[][] labels;
+        private final int[][] targets;
+        private final int[] fail;
+        private final long[] output;
+        private final int[][] outputLengths;
+        private final long[][] outputBits;
+
+        AhoCorasick(Map<String, Long> patterns) {
+            List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+            List<Long> outputs = new ArrayList<>();
+            List<Integer> depths = new ArrayList<>();
+            edges.add(new TreeMap<>());
+            outputs.add(0L);
+            depths.add(0);
+
+            for (Map.Entry<String, Long> pattern : patterns.entrySet()) {
+                int state = 0;
+                for (char c : pattern.getKey().toCharArray()) {
+                    Integer next = edges.get(state).get(c);
+                    if (next == null) {
+                        next = edges.size();
+                        edges.get(state).put(c, next);
+                        edges.add(new TreeMap<>());
+                        outputs.add(0L);
+                        depths.add(depths.get(state) + 1);
+                    }
+                    state = next;
+                }
+                outputs.set(state, outputs.get(state) | pattern.getValue());
+            }
+
+            int size = edges.size();
+            labels = new char[size][];
+            targets = new int[size][];
+            fail = new int[size];
+            output = new long[size];
+            outputLengths = new int[size][];
+            outputBits = new long[size][];
+            for (int state = 0; state < size; state++) {
+                TreeMap<Character, Integer> transitions = edges.get(state);
+                labels[state] = new char[transitions.size()];
+                targets[state] = new int[transitions.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                    labels[state][i] = transition.getKey();
+                    targets[state][i] = transition.getValue();
+                    i++;
+                }
+                output[state] = outputs.get(state);
+            }
+
+            // Liens d'échec en largeur ; les sorties héritent de celles du suffixe
+            outputLengths[0] = new int[0];
+            outputBits[0] = new long[0];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                inheritOutputs(child, 0, depths.get(child), outputs.get(child));
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < labels[state].length; i++) {
+                    int child = targets[state][i];
+                    int f = fail[state];
+                    int next;
+                    while ((next = step(f, labels[state][i])) < 0 && f != 0) {
+                        f = fail[f];
+                    }
+                    fail[child] = next >= 0 && next != child ? next : 0;
+                    output[child] |= output[fail[child]];
+                    inheritOutputs(child, fail[child], depths.get(child), outputs.get(child));
+                    queue.add(child);
+                }
+            }
+        }
+
+        // Sorties propres à l'état (motif de longueur depth) puis celles de son lien d'échec, déjà calculées
+        private void inheritOutputs(int state, int failState, int depth, long own) {
+            int inherited = outputLengths[failState].length;
+            outputLengths[state] = Arrays.copyOf(outputLengths[failState], inherited + (own != 0 ? 1 : 0));
+            outputBits[state] = Arrays.copyOf(outputBits[failState], inherited + (own != 0 ? 1 : 0));
+            if (own != 0) {
+                outputLengths[state][inherited] = depth;
+                outputBits[state][inherited] = own;
+            }
+        }
+
+        long match(String text) {
+            long bits = 0;
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int next;
+                while ((next = step(state, c)) < 0 && state != 0) {
+                    state = fail[state];
+                }
+                state = Math.max(next, 0);
+                if (output[state] == 0) continue;
+                // Occurrence [i - length + 1, i] retenue si elle n'est pas collée à une lettre
+                boolean endsWord = i + 1 == text.length() || !Character.isLetter(text.charAt(i + 1));
+                if (!endsWord) continue;
+                for (int k = 0; k < outputLengths[state].length; k++) {
+                    int start = i - outputLengths[state][k] + 1;
+                    if (start == 0 || !Character.isLetter(text.charAt(start - 1))) {
+                        bits |= outputBits[state][k];
+                    }
+                }
+            }
+            return bits;
+        }
+
+        private int step(int state, char c) {
+            int i = Arrays.binarySearch(labels[state], c);
+            return i >= 0 ? targets[state][i] : -1;
+        }
+    }
+}
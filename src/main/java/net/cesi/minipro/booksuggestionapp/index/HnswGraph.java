@@ -0,0 +1,359 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Graphe HNSW (Hierarchical Navigable Small World) sur vecteurs normalisés, distance = 1 - produit scalaire.
+// Un seul écrivain à la fois ; les lectures ne prennent aucun verrou : les listes de voisins sont
+// remplacées en bloc (copie sur écriture) et chaque nœud est publié avant d'être relié au graphe.
+final class HnswGraph<T> {
+
+    private final int maxLinks;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    @SuppressWarnings("unchecked")
+    private volatile Node<T>[] nodes = new Node[1024];
+    private volatile int size;
+    private volatile EntryPoint entryPoint;
+
+    HnswGraph(int maxLinks, int efConstruction, long seed) {
+        this.maxLinks = maxLinks;
+        this.maxLinksLevel0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int size() {
+        return size;
+    }
+
+    T payload(int id) {
+        return nodes[id].payload;
+    }
+
+    float[] vector(int id) {
+        return nodes[id].vector;
+    }
+
+    synchronized int insert(T payload, float[] vector) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int id = size;
+        Node<T> node = new Node<>(payload, vector, level);
+
+        Node<T>[] current = nodes;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, id * 2);
+        }
+        current[id] = node;
+        nodes = current;
+        size = id + 1;
+
+        EntryPoint entry = entryPoint;
+        if (entry == null) {
+            entryPoint = new EntryPoint(id, level);
+            return id;
+        }
+
+        int nearest = entry.node;
+        for (int l = entry.level; l > level; l--) {
+            nearest = greedyClosest(vector, nearest, l);
+        }
+
+        for (int l = Math.min(level, entry.level); l >= 0; l--) {
+            NodeQueue candidates = searchLayer(vector, nearest, efConstruction, l);
+            int[] sorted = candidates.sortedIds();
+            int[] selected = selectNeighbors(vector, sorted, maxLinks);
+            node.links.set(l, selected);
+            for (int neighbor : selected) {
+                link(neighbor, id, l);
+            }
+            nearest = sorted[0];
+        }
+
+        if (level > entry.level) {
+            entryPoint = new EntryPoint(id, level);
+        }
+        return id;
+    }
+
+    // Copie cohérente du graphe (références : vecteurs et listes de liens ne sont jamais modifiés sur place)
+    synchronized Export<T> export() {
+        int count = size;
+        List<T> payloads = new ArrayList<>(count);
+        float[][] vectors = new float[count][];
+        int[][][] links = new int[count][][];
+        for (int id = 0; id < count; id++) {
+            Node<T> node = nodes[id];
+            payloads.add(node.payload);
+            vectors[id] = node.vector;
+            links[id] = new int[node.links.length()][];
+            for (int l = 0; l < links[id].length; l++) {
+                links[id][l] = node.links.get(l);
+            }
+        }
+        EntryPoint entry = entryPoint;
+        return new Export<>(payloads, vectors, links, entry != null ? entry.node : -1, entry != null ? entry.level : -1);
+    }
+
+    // Recharge un graphe exporté, sans recalcul des voisinages ; uniquement sur un graphe vide
+    synchronized void restore(Export<T> graph) {
+        if (size > 0) throw new IllegalStateException("HNSW graph already contains " + size + " nodes");
+        int count = graph.payloads().size();
+        @SuppressWarnings("unchecked")
+        Node<T>[] restored = new Node[Math.max(1024, Integer.highestOneBit(Math.max(1, count)) * 2)];
+        for (int id = 0; id < count; id++) {
+            int[][] levels = graph.links()[id];
+            Node<T> node = new Node<>(graph.payloads().get(id), graph.vectors()[id], levels.length - 1);
+            for (int l = 0; l < levels.length; l++) {
+                node.links.set(l, levels[l]);
+            }
+            restored[id] = node;
+        }
+        nodes = restored;
+        size = count;
+        entryPoint = graph.entryNode() >= 0 ? new EntryPoint(graph.entryNode(), graph.entryLevel()) : null;
+    }
+
+    // Les k plus proches de query, du plus proche au plus lointain
+    List<Match> search(float[] query, int k, int ef) {
+        EntryPoint entry = entryPoint;
+        if (entry == null || k <= 0) return List.of();
+
+        int nearest = entry.node;
+        for (int l = entry.level; l > 0; l--) {
+            nearest = greedyClosest(query, nearest, l);
+        }
+        NodeQueue results = searchLayer(query, nearest, Math.max(ef, k), 0);
+
+        int[] ids = results.sortedIds();
+        List<Match> matches = new ArrayList<>(Math.min(k, ids.length));
+        for (int i = 0; i < ids.length && matches.size() < k; i++) {
+            matches.add(new Match(ids[i], 1 - distance(query, nodes[ids[i]].vector)));
+        }
+        return matches;
+    }
+
+    // Descente gloutonne dans une couche haute
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = distance(query, nodes[current].vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : nodes[current].links(level)) {
+                float d = distance(query, nodes[neighbor].vector);
+                if (d < best) {
+                    best = d;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Recherche en largeur bornée à ef résultats (Malkov & Yashunin, algorithme 2)
+    private NodeQueue searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        NodeQueue candidates = new NodeQueue(ef, false);
+        NodeQueue results = new NodeQueue(ef, true);
+
+        float startDistance = distance(query, nodes[start].vector);
+        visited.set(start);
+        candidates.push(start, startDistance);
+        results.push(start, startDistance);
+
+        while (candidates.size() > 0) {
+            float candidateDistance = candidates.topDistance();
+            int candidate = candidates.pop();
+            if (candidateDistance > results.topDistance()) break;
+
+            for (int neighbor : nodes[candidate].links(level)) {
+                if (visited.get(neighbor)) continue;
+                visited.set(neighbor);
+
+                float d = distance(query, nodes[neighbor].vector);
+                if (results.size() < ef || d < results.topDistance()) {
+                    candidates.push(neighbor, d);
+                    results.push(neighbor, d);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    // Heuristique de diversité : un candidat est gardé s'il est plus proche de la base que des voisins déjà
+    // retenus ; les places restantes reviennent aux écartés les plus proches
+    private int[] selectNeighbors(float[] base, int[] sortedCandidates, int max) {
+        int[] selected = new int[Math.min(max, sortedCandidates.length)];
+        boolean[] kept = new boolean[sortedCandidates.length];
+        int count = 0;
+        for (int c = 0; c < sortedCandidates.length && count < selected.length; c++) {
+            float[] vector = nodes[sortedCandidates[c]].vector;
+            float toBase = distance(base, vector);
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                if (distance(vector, nodes[selected[i]].vector) < toBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = sortedCandidates[c];
+                kept[c] = true;
+            }
+        }
+        for (int c = 0; c < sortedCandidates.length && count < selected.length; c++) {
+            if (!kept[c]) selected[count++] = sortedCandidates[c];
+        }
+        return selected;
+    }
+
+    // Ajoute le lien neighbor -> id ; au-delà du maximum, la liste est re-sélectionnée depuis neighbor
+    private void link(int neighbor, int id, int level) {
+        Node<T> node = nodes[neighbor];
+        int[] links = node.links(level);
+        int max = level == 0 ? maxLinksLevel0 : maxLinks;
+
+        int[] updated = Arrays.copyOf(links, links.length + 1);
+        updated[links.length] = id;
+        if (updated.length > max) {
+            NodeQueue byDistance = new NodeQueue(updated.length, true);
+            for (int candidate : updated) {
+                byDistance.push(candidate, distance(node.vector, nodes[candidate].vector));
+            }
+            updated = selectNeighbors(node.vector, byDistance.sortedIds(), max);
+        }
+        node.links.set(level, updated);
+    }
+
+    // Quatre accumulateurs indépendants : le JIT ne vectorise pas une réduction flottante séquentielle
+    static float distance(float[] a, float[] b) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = a.length & ~3; i < end; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return 1 - (s0 + s1 + s2 + s3);
+    }
+
+    record Match(int id, float similarity) {
+    }
+
+    // links[id][niveau] = voisins du nœud id ; entryNode = -1 pour un graphe vide
+    record Export<T>(List<T> payloads, float[][] vectors, int[][][] links, int entryNode, int entryLevel) {
+    }
+
+    private record EntryPoint(int node, int level) {
+    }
+
+    private static final class Node<T> {
+        private static final int[] NO_LINKS = new int[0];
+
+        private final T payload;
+        private final float[] vector;
+        private final AtomicReferenceArray<int[]> links;
+
+        Node(T payload, float[] vector, int level) {
+            this.payload = payload;
+            this.vector = vector;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                links.set(l, NO_LINKS);
+            }
+        }
+
+        int[] links(int level) {
+            return level < links.length() ? links.get(level) : NO_LINKS;
+        }
+    }
+
+    // Tas binaire (id, distance) sur tableaux primitifs ; max = le plus lointain en tête
+    private static final class NodeQueue {
+        private int[] ids;
+        private float[] distances;
+        private int size;
+        private final boolean max;
+
+        NodeQueue(int capacity, boolean max) {
+            this.ids = new int[Math.max(4, capacity + 1)];
+            this.distances = new float[ids.length];
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topDistance() {
+            return distances[0];
+        }
+
+        void push(int id, float distance) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!before(distance, distances[parent])) break;
+                ids[i] = ids[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            distances[i] = distance;
+        }
+
+        int pop() {
+            int top = ids[0];
+            size--;
+            int lastId = ids[size];
+            float last = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(distances[child + 1], distances[child])) child++;
+                if (!before(distances[child], last)) break;
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            distances[i] = last;
+            return top;
+        }
+
+        // Identifiants du plus proche au plus lointain (vide la file)
+        int[] sortedIds() {
+            int[] sorted = new int[size];
+            if (max) {
+                for (int i = sorted.length - 1; i >= 0; i--) sorted[i] = pop();
+            } else {
+                for (int i = 0; i < sorted.length; i++) sorted[i] = pop();
+            }
+            return sorted;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.event.BooksCachedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Livres similaires ("more like this") par recherche approchée des plus proches voisins (HNSW).
+// Les insertions se font en arrière-plan pour ne pas ralentir la recherche qui a mis les livres en cache.
+// Elles attendent la fin du chargement du catalogue : l'IDF des vecteurs est alors celui du catalogue complet
+// et non celui de la page en cours de chargement.
+@Component
+public class SimilarBooksIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarBooksIndex.class);
+
+    private static final int MAX_LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+
+    private final BookVectorizer vectorizer;
+    private final Executor backgroundExecutor;
+    private final HnswGraph<BookDTO> graph = new HnswGraph<>(MAX_LINKS, EF_CONSTRUCTION, 42);
+    private final Map<String, Integer> nodesByGoogleId = new ConcurrentHashMap<>();
+
+    private final Queue<BookDTO> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean catalogLoaded;
+
+    public SimilarBooksIndex(BookTextIndex textIndex, @Qualifier("backgroundExecutor") Executor backgroundExecutor) {
+        this.vectorizer = new BookVectorizer(textIndex);
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    @EventListener
+    public void onBooksCached(BooksCachedEvent event) {
+        pending.addAll(event.getBooks());
+        if (catalogLoaded) scheduleDrain();
+    }
+
+    // Appelé par CatalogLoader une fois le catalogue chargé dans l'index texte (ou son chargement abandonné)
+    public void onCatalogLoaded() {
+        catalogLoaded = true;
+        scheduleDrain();
+    }
+
+    public int size() {
+        return graph.size();
+    }
+
+    // Vide si le livre n'est pas (encore) indexé
+    public Optional<List<BookDTO>> similar(String googleBookId, int limit) {
+        Integer node = nodesByGoogleId.get(googleBookId);
+        if (node == null) return Optional.empty();
+
+        List<HnswGraph.Match> matches = graph.search(graph.vector(node), limit + 1, Math.max(EF_SEARCH, limit + 1));
+        List<BookDTO> books = new ArrayList<>(limit);
+        for (HnswGraph.Match match : matches) {
+            if (books.size() == limit) break;
+            if (match.id() == node) continue;
+            // Copie : le DTO indexé est partagé entre les requêtes
+            books.add(graph.payload(match.id()).toBuilder().recommendationScore((double) match.similarity()).build());
+        }
+        return Optional.of(books);
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            backgroundExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Les livres restent en attente : repris au prochain événement
+            draining.set(false);
+            log.warn("Background queue full, {} books wait for the similarity index", pending.size());
+        }
+    }
+
+    private void drain() {
+        try {
+            BookDTO book;
+            while ((book = pending.poll()) != null) {
+                insert(book);
+            }
+        } catch (Exception e) {
+            log.error("Error indexing book vectors: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+        // Livres arrivés entre la fin de la boucle et la libération du drapeau
+        if (!pending.isEmpty()) scheduleDrain();
+    }
+
+    HnswGraph.Export<BookDTO> exportGraph() {
+        return graph.export();
+    }
+
+    // Graphe relu d'un instantané (vecteurs calculés avec l'IDF du catalogue qui l'a écrit) ;
+    // false si des livres ont déjà été indexés entre-temps (reconstruction par événements)
+    synchronized boolean restore(HnswGraph.Export<BookDTO> export) {
+        if (graph.size() > 0) return false;
+        graph.restore(export);
+        List<BookDTO> payloads = export.payloads();
+        for (int node = 0; node < payloads.size(); node++) {
+            nodesByGoogleId.put(payloads.get(node).getGoogleBookId(), node);
+        }
+        return true;
+    }
+
+    private synchronized void insert(BookDTO book) {
+        String googleBookId = book.getGoogleBookId();
+        if (googleBookId == null || nodesByGoogleId.containsKey(googleBookId)) return;
+
+        float[] vector = vectorizer.vectorize(book);
+        if (vector == null) return;
+
+        int node = graph.insert(book.toBuilder().recommendationScore(null).build(), vector);
+        nodesByGoogleId.put(googleBookId, node);
+    }
+}
@@ -0,0 +1,24 @@
+package net.cesi.minipro.booksuggestionapp.metrics;
+
+import net.cesi.minipro.booksuggestionapp.service.CatalogWarmup;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Sonde "catalogWarmup" du groupe readiness : hors service tant que le seuil de pré-chargement n'est pas atteint.
+// Un premier passage terminé sous le seuil reste UP, avec degraded = true dans les détails.
+@Component
+public class CatalogWarmupHealthIndicator implements HealthIndicator {
+
+    private final CatalogWarmup catalogWarmup;
+
+    public CatalogWarmupHealthIndicator(CatalogWarmup catalogWarmup) {
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = catalogWarmup.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(catalogWarmup.progress()).build();
+    }
+}
@@ -0,0 +1,53 @@
+package net.cesi.minipro.booksuggestionapp.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Compteur d'appels Google Books de la requête HTTP en cours.
+// Capturé à l'assemblage des recherches non bloquantes de GoogleBooksApiService.
+public final class UpstreamCallContext {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private UpstreamCallContext() {
+    }
+
+    static AtomicInteger open() {
+        AtomicInteger calls = new AtomicInteger();
+        CURRENT.set(calls);
+        return calls;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    public static void recordCall() {
+        AtomicInteger calls = CURRENT.get();
+        if (calls != null) calls.incrementAndGet();
+    }
+
+    // Exécute la tâche avec le compteur du thread appelant
+    public static Runnable wrap(Runnable task) {
+        Supplier<Void> wrapped = wrap(() -> {
+            task.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    // Assemblage différé d'une recherche (Mono.defer sur un autre thread) compté pour la requête qui la prépare
+    public static <T> Supplier<T> wrap(Supplier<T> call) {
+        AtomicInteger calls = CURRENT.get();
+        if (calls == null) return call;
+        return () -> {
+            AtomicInteger previous = CURRENT.get();
+            CURRENT.set(calls);
+            try {
+                return call.get();
+            } finally {
+                if (previous != null) CURRENT.set(previous); else CURRENT.remove();
+            }
+        };
+    }
+}
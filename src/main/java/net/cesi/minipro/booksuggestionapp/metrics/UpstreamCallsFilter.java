@@ -0,0 +1,74 @@
+package net.cesi.minipro.booksuggestionapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Nombre d'appels Google Books déclenchés par chaque requête /api, par route
+@Component
+public class UpstreamCallsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamCallsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AtomicInteger calls = UpstreamCallContext.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            UpstreamCallContext.close();
+            if (request.isAsyncStarted()) {
+                // Réponse Mono / Flux : les appels se poursuivent après ce premier passage, relevés à la fin de l'échange
+                // (onComplete suit aussi un dépassement de délai ou une erreur)
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, calls);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, calls);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, AtomicInteger calls) {
+        // Route déclarée (ex. /api/books/search/genre/{genre}) : cardinalité bornée
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route instanceof String uri && uri.startsWith("/api/")) {
+            DistributionSummary.builder("google.books.api.calls.per.request")
+                    .description("Google Books calls made while serving one request")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(calls.get());
+        }
+    }
+}
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = @Index(name = "idx_books_cached_at", columnList = "cached_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,32 @@
+package net.cesi.minipro.booksuggestionapp.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Auteur d'un livre du catalogue, avec une clé normalisée indexée pour les recherches exactes
+@Entity
+@Table(name = "book_authors",
+        uniqueConstraints = @UniqueConstraint(name = "uk_book_authors_book_key", columnNames = {"book_id", "name_key"}),
+        indexes = @Index(name = "idx_book_authors_key", columnList = "name_key, book_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookAuthor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+}
@@ -0,0 +1,24 @@
+package net.cesi.minipro.booksuggestionapp.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Migrations de données déjà appliquées (le schéma, lui, est géré par ddl-auto)
+@Entity
+@Table(name = "data_migrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -10,7 +10,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reading_history")
+// Index pour la pagination de la bibliothèque (plus récents d'abord)
+@Table(name = "reading_history", indexes = {
+        @Index(name = "idx_reading_history_user_added", columnList = "user_id, added_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
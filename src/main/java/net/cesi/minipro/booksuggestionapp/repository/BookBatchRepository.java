@@ -0,0 +1,14 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.models.Book;
+
+import java.util.List;
+
+public interface BookBatchRepository {
+    // INSERT IGNORE multi-lignes : les livres déjà présents (google_book_id unique) sont ignorés
+    // Les lignes book_authors / book_categories des livres insérés sont ajoutées dans la foulée
+    int insertIgnoreAll(List<Book> books);
+
+    // Lignes book_authors / book_categories de livres déjà en base (id renseigné) ; idempotent
+    int insertTerms(List<Book> books);
+}
@@ -0,0 +1,116 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class BookBatchRepositoryImpl implements BookBatchRepository {
+
+    private static final int ROWS_PER_STATEMENT = 100;
+    private static final int TERM_ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX = "INSERT IGNORE INTO books " +
+            "(google_book_id, title, authors, description, categories, thumbnail_url, " +
+            "average_rating, published_date, page_count, language, cached_at) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Livres et termes dans la même transaction ; les termes sont toujours (ré)insérés en IGNORE
+    // pour qu'un livre déjà présent dont les termes manquent soit complété
+    @Override
+    @Transactional
+    public int insertIgnoreAll(List<Book> books) {
+        int inserted = 0;
+        for (int from = 0; from < books.size(); from += ROWS_PER_STATEMENT) {
+            List<Book> chunk = books.subList(from, Math.min(from + ROWS_PER_STATEMENT, books.size()));
+            inserted += insertChunk(chunk);
+            insertTerms(withIds(chunk));
+        }
+        return inserted;
+    }
+
+    @Override
+    public int insertTerms(List<Book> books) {
+        List<Object[]> authors = new ArrayList<>();
+        List<Object[]> categories = new ArrayList<>();
+        for (Book book : books) {
+            BookTerms.authors(book).forEach((key, name) -> authors.add(new Object[]{book.getId(), name, key}));
+            BookTerms.categories(book).forEach((key, name) -> categories.add(new Object[]{book.getId(), name, key}));
+        }
+        return insertTermRows("book_authors", authors) + insertTermRows("book_categories", categories);
+    }
+
+    // Récupère les id générés (les livres ignorés gardent l'id de la ligne existante)
+    private List<Book> withIds(List<Book> chunk) {
+        Map<String, Book> byGoogleId = new HashMap<>();
+        for (Book book : chunk) {
+            byGoogleId.put(book.getGoogleBookId(), book);
+        }
+        String placeholders = String.join(", ", Collections.nCopies(byGoogleId.size(), "?"));
+
+        List<Book> books = new ArrayList<>(byGoogleId.size());
+        jdbcTemplate.query("SELECT id, google_book_id FROM books WHERE google_book_id IN (" + placeholders + ")",
+                rs -> {
+                    Book book = byGoogleId.get(rs.getString(2));
+                    if (book != null) {
+                        book.setId(rs.getLong(1));
+                        books.add(book);
+                    }
+                },
+                byGoogleId.keySet().toArray());
+        return books;
+    }
+
+    private int insertTermRows(String table, List<Object[]> rows) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += TERM_ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + TERM_ROWS_PER_STATEMENT, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT IGNORE INTO ").append(table).append(" (book_id, name, name_key) VALUES ");
+            List<Object> params = new ArrayList<>(chunk.size() * 3);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append("(?, ?, ?)");
+                params.addAll(Arrays.asList(chunk.get(i)));
+            }
+            inserted += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return inserted;
+    }
+
+    private int insertChunk(List<Book> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> params = new ArrayList<>(chunk.size() * 11);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW_PLACEHOLDERS);
+
+            Book book = chunk.get(i);
+            params.add(book.getGoogleBookId());
+            params.add(book.getTitle());
+            params.add(book.getAuthors());
+            params.add(book.getDescription());
+            params.add(book.getCategories());
+            params.add(book.getThumbnailUrl());
+            params.add(book.getAverageRating());
+            params.add(book.getPublishedDate());
+            params.add(book.getPageCount());
+            params.add(book.getLanguage());
+            params.add(book.getCachedAt() != null ? Timestamp.valueOf(book.getCachedAt()) : now);
+        }
+
+        // Le nombre de lignes affectées exclut les doublons ignorés
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+}
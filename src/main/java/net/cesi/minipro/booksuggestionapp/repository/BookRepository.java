@@ -3,22 +3,49 @@ package net.cesi.minipro.booksuggestionapp.repository;
 
 
 import net.cesi.minipro.booksuggestionapp.models.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookBatchRepository {
     Optional<Book> findByGoogleBookId(String googleBookId);
     boolean existsByGoogleBookId(String googleBookId);
 
-    @Query("SELECT b FROM Book b WHERE b.categories LIKE %:category%")
-    List<Book> findByCategory(@Param("category") String category);
+    @Query("SELECT b.googleBookId FROM Book b WHERE b.googleBookId IN :googleBookIds")
+    List<String> findExistingGoogleBookIds(@Param("googleBookIds") Collection<String> googleBookIds);
 
-    @Query("SELECT b FROM Book b WHERE b.authors LIKE %:author%")
-    List<Book> findByAuthor(@Param("author") String author);
+    // Parcours du catalogue par pages (pagination par clé sur l'id)
+    List<Book> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
+
+    // Lignes mises en cache après (afterCachedAt, afterId) (rejeu après chargement d'un instantané) :
+    // pagination par clé sur (cached_at, id), l'ordre de l'index idx_books_cached_at.
+    // Première page : afterCachedAt = borne du rejeu, afterId = 0.
+    @Query("SELECT b FROM Book b WHERE b.cachedAt > :afterCachedAt OR (b.cachedAt = :afterCachedAt AND b.id > :afterId) " +
+            "ORDER BY b.cachedAt, b.id")
+    List<Book> findCachedSince(@Param("afterCachedAt") LocalDateTime afterCachedAt, @Param("afterId") Long afterId,
+                               Limit limit);
+
+    // Recherches exactes via les tables normalisées (index sur name_key) ;
+    // une catégorie correspond à son libellé complet ou à l'un de ses niveaux ("Fantasy" dans "Fiction / Fantasy")
+    @Query("SELECT b FROM Book b WHERE b.id IN (SELECT c.bookId FROM BookCategory c WHERE c.nameKey = :categoryKey)")
+    List<Book> findByCategoryKey(@Param("categoryKey") String categoryKey);
+
+    @Query("SELECT b FROM Book b WHERE b.id IN (SELECT a.bookId FROM BookAuthor a WHERE a.nameKey = :authorKey)")
+    List<Book> findByAuthorKey(@Param("authorKey") String authorKey);
+
+    default List<Book> findByCategory(String category) {
+        return findByCategoryKey(BookTerms.key(category));
+    }
+
+    default List<Book> findByAuthor(String author) {
+        return findByAuthorKey(BookTerms.key(author));
+    }
 }
\ No newline at end of file
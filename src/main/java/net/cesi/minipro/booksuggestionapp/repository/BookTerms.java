@@ -0,0 +1,53 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.index.Tokenizer;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.service.BookMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Lignes book_authors / book_categories d'un livre : clé normalisée -> libellé d'origine
+public final class BookTerms {
+
+    // Taille des colonnes VARCHAR(255)
+    private static final int MAX_LENGTH = 255;
+
+    private BookTerms() {
+    }
+
+    public static Map<String, String> authors(Book book) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        for (String author : BookMapper.parseJsonArray(book.getAuthors())) {
+            add(terms, author);
+        }
+        return terms;
+    }
+
+    // "Fiction / Fantasy / Epic" -> le libellé complet, puis "fiction", "fantasy", "epic"
+    public static Map<String, String> categories(Book book) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        for (String category : BookMapper.parseJsonArray(book.getCategories())) {
+            add(terms, category);
+            for (String level : category.split("/")) {
+                add(terms, level);
+            }
+        }
+        return terms;
+    }
+
+    public static String key(String value) {
+        return truncate(Tokenizer.foldKey(value));
+    }
+
+    private static void add(Map<String, String> terms, String value) {
+        String key = key(value);
+        if (!key.isEmpty()) {
+            terms.putIfAbsent(key, truncate(value.trim()));
+        }
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_LENGTH ? value.substring(0, MAX_LENGTH) : value;
+    }
+}
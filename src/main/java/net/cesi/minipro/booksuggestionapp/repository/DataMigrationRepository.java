@@ -0,0 +1,9 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.models.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+}
@@ -0,0 +1,17 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
+
+import java.time.LocalDateTime;
+
+// Projection d'une entrée de bibliothèque : colonnes lues en une seule jointure reading_history/books
+public interface LibraryEntryView {
+    Long getId();
+    Long getBookId();
+    String getGoogleBookId();
+    String getTitle();
+    String getAuthors();
+    String getThumbnailUrl();
+    ReadingStatus getStatus();
+    LocalDateTime getAddedAt();
+}
@@ -0,0 +1,10 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.models.Preference;
+
+import java.util.List;
+
+public interface PreferenceBatchRepository {
+    // INSERT multi-lignes : une seule requête quel que soit le nombre de préférences
+    int insertAll(List<Preference> preferences);
+}
@@ -0,0 +1,37 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+import net.cesi.minipro.booksuggestionapp.models.Preference;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PreferenceBatchRepositoryImpl implements PreferenceBatchRepository {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO user_preferences (user_id, preference_type, preference_value) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PreferenceBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll(List<Preference> preferences) {
+        if (preferences.isEmpty()) return 0;
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> params = new ArrayList<>(preferences.size() * 3);
+        for (int i = 0; i < preferences.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?)");
+
+            Preference preference = preferences.get(i);
+            params.add(preference.getUserId());
+            params.add(preference.getPreferenceType().name());
+            params.add(preference.getPreferenceValue());
+        }
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+}
@@ -0,0 +1,7 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+// Valeur de préférence et nombre d'utilisateurs qui l'ont choisie
+public interface PreferenceCountView {
+    String getPreferenceValue();
+    Long getUsers();
+}
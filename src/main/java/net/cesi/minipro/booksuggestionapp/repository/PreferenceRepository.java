@@ -3,14 +3,23 @@ package net.cesi.minipro.booksuggestionapp.repository;
 
 import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
 import net.cesi.minipro.booksuggestionapp.models.Preference;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface PreferenceRepository extends JpaRepository<Preference, Long> {
-    List<Preference> findByUserId(Long userId);
+public interface PreferenceRepository extends JpaRepository<Preference, Long>, PreferenceBatchRepository {
+    // Ordre d'insertion = ordre choisi par l'utilisateur (le premier genre est le genre principal)
+    List<Preference> findByUserIdOrderByIdAsc(Long userId);
     List<Preference> findByUserIdAndPreferenceType(Long userId, PreferenceType type);
     void deleteByUserId(Long userId);
+
+    // Valeurs les plus choisies, par nombre d'utilisateurs
+    @Query("SELECT p.preferenceValue AS preferenceValue, COUNT(p) AS users FROM Preference p " +
+            "WHERE p.preferenceType = :type GROUP BY p.preferenceValue ORDER BY COUNT(p) DESC")
+    List<PreferenceCountView> findMostPopular(@Param("type") PreferenceType type, Limit limit);
 }
\ No newline at end of file
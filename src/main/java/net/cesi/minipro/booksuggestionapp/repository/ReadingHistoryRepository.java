@@ -2,10 +2,15 @@ package net.cesi.minipro.booksuggestionapp.repository;
 
 
 
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
 import net.cesi.minipro.booksuggestionapp.models.ReadingHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +19,34 @@ public interface ReadingHistoryRepository extends JpaRepository<ReadingHistory,
     List<ReadingHistory> findByUserId(Long userId);
     Optional<ReadingHistory> findByUserIdAndBookId(Long userId, Long bookId);
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
+
+    // Bibliothèque, plus récents d'abord : première page (index user_id, added_at, id)
+    @Query("SELECT h.id AS id, b.id AS bookId, b.googleBookId AS googleBookId, b.title AS title, " +
+            "b.authors AS authors, b.thumbnailUrl AS thumbnailUrl, h.status AS status, h.addedAt AS addedAt " +
+            "FROM ReadingHistory h JOIN h.book b " +
+            "WHERE h.user.id = :userId AND (:status IS NULL OR h.status = :status) " +
+            "ORDER BY h.addedAt DESC, h.id DESC")
+    List<LibraryEntryView> findLibrary(
+            @Param("userId") Long userId,
+            @Param("status") ReadingStatus status,
+            Limit limit);
+
+    // Page suivante : entrées strictement après le curseur (addedAt, id)
+    @Query("SELECT h.id AS id, b.id AS bookId, b.googleBookId AS googleBookId, b.title AS title, " +
+            "b.authors AS authors, b.thumbnailUrl AS thumbnailUrl, h.status AS status, h.addedAt AS addedAt " +
+            "FROM ReadingHistory h JOIN h.book b " +
+            "WHERE h.user.id = :userId AND (:status IS NULL OR h.status = :status) " +
+            "AND (h.addedAt < :addedAt OR (h.addedAt = :addedAt AND h.id < :id)) " +
+            "ORDER BY h.addedAt DESC, h.id DESC")
+    List<LibraryEntryView> findLibraryAfter(
+            @Param("userId") Long userId,
+            @Param("status") ReadingStatus status,
+            @Param("addedAt") LocalDateTime addedAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    // Parcours complet par pages (pagination par clé sur l'id)
+    @Query("SELECT h.id AS id, h.user.id AS userId, h.book.id AS bookId FROM ReadingHistory h " +
+            "WHERE h.id > :afterId ORDER BY h.id")
+    List<ReadingPairView> findPairsAfter(@Param("afterId") Long afterId, Limit limit);
 }
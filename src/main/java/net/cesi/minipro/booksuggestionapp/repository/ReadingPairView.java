@@ -0,0 +1,8 @@
+package net.cesi.minipro.booksuggestionapp.repository;
+
+// Couple (utilisateur, livre) de reading_history, sans charger les entités
+public interface ReadingPairView {
+    Long getId();
+    Long getUserId();
+    Long getBookId();
+}
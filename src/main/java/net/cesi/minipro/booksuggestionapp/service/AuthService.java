@@ -5,6 +5,7 @@ import net.cesi.minipro.booksuggestionapp.dto.AuthResponse;
 import net.cesi.minipro.booksuggestionapp.dto.LoginRequest;
 import net.cesi.minipro.booksuggestionapp.dto.RegisterRequest;
 import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
+import net.cesi.minipro.booksuggestionapp.event.PreferencesChangedEvent;
 import net.cesi.minipro.booksuggestionapp.models.Preference;
 import net.cesi.minipro.booksuggestionapp.models.User;
 import net.cesi.minipro.booksuggestionapp.repository.PreferenceRepository;
@@ -12,9 +13,15 @@ import net.cesi.minipro.booksuggestionapp.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 public class AuthService {
 
@@ -22,11 +29,16 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PreferenceRepository preferenceRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public AuthService(UserRepository userRepository, PreferenceRepository preferenceRepository) {
+    public AuthService(
+            UserRepository userRepository,
+            PreferenceRepository preferenceRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.preferenceRepository = preferenceRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -51,25 +63,13 @@ public class AuthService {
         // Sauvegarder les préférences
         Long userId = user.getId();
 
-        if (request.getFavoriteGenres() != null) {
-            for (String genre : request.getFavoriteGenres()) {
-                Preference pref = new Preference();
-                pref.setUserId(userId);
-                pref.setPreferenceType(PreferenceType.GENRE);
-                pref.setPreferenceValue(genre);
-                preferenceRepository.save(pref);
-            }
-        }
+        // Un seul INSERT multi-lignes pour toutes les préférences
+        List<Preference> preferences = new ArrayList<>();
+        addPreferences(preferences, userId, PreferenceType.GENRE, request.getFavoriteGenres());
+        addPreferences(preferences, userId, PreferenceType.AUTHOR, request.getFavoriteAuthors());
+        preferenceRepository.insertAll(preferences);
 
-        if (request.getFavoriteAuthors() != null) {
-            for (String author : request.getFavoriteAuthors()) {
-                Preference pref = new Preference();
-                pref.setUserId(userId);
-                pref.setPreferenceType(PreferenceType.AUTHOR);
-                pref.setPreferenceValue(author);
-                preferenceRepository.save(pref);
-            }
-        }
+        eventPublisher.publishEvent(new PreferencesChangedEvent(userId));
 
         log.info("User registered: {}", user.getEmail());
 
@@ -82,6 +82,20 @@ public class AuthService {
                 .build();
     }
 
+    private static void addPreferences(List<Preference> preferences, Long userId, PreferenceType type, List<String> values) {
+        if (values == null) return;
+        Set<String> seen = new HashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank() && seen.add(value)) {
+                Preference pref = new Preference();
+                pref.setUserId(userId);
+                pref.setPreferenceType(type);
+                pref.setPreferenceValue(value);
+                preferences.add(pref);
+            }
+        }
+    }
+
     public AuthResponse login(LoginRequest request) {
         // Chercher l'utilisateur par email
         User user = userRepository.findByEmail(request.getEmail());
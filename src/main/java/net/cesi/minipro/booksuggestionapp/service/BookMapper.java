@@ -0,0 +1,53 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+
+import java.util.List;
+
+// Conversions Book <-> BookDTO (auteurs et catégories stockés en tableau JSON texte)
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    public static Book toBook(BookDTO dto) {
+        return Book.builder()
+                .googleBookId(dto.getGoogleBookId())
+                .title(dto.getTitle())
+                .authors(convertListToJson(dto.getAuthors()))
+                .description(dto.getDescription())
+                .categories(convertListToJson(dto.getCategories()))
+                .thumbnailUrl(dto.getThumbnailUrl())
+                .averageRating(dto.getAverageRating())
+                .publishedDate(dto.getPublishedDate())
+                .pageCount(dto.getPageCount())
+                .language(dto.getLanguage())
+                .build();
+    }
+
+    public static BookDTO toBookDTO(Book book) {
+        return BookDTO.builder()
+                .googleBookId(book.getGoogleBookId())
+                .title(book.getTitle())
+                .authors(parseJsonArray(book.getAuthors()))
+                .description(book.getDescription())
+                .categories(parseJsonArray(book.getCategories()))
+                .thumbnailUrl(book.getThumbnailUrl())
+                .averageRating(book.getAverageRating())
+                .publishedDate(book.getPublishedDate())
+                .pageCount(book.getPageCount())
+                .language(book.getLanguage())
+                .build();
+    }
+
+    public static String convertListToJson(List<String> list) {
+        if (list == null || list.isEmpty()) return "[]";
+        return "[\"" + String.join("\",\"", list) + "\"]";
+    }
+
+    public static List<String> parseJsonArray(String json) {
+        if (json == null || json.equals("[]")) return List.of();
+        return List.of(json.replace("[", "").replace("]", "").replace("\"", "").split(","));
+    }
+}
@@ -0,0 +1,94 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Component
+public class BookSearchCache {
+
+    // Surcoût approximatif d'un objet/entrée (en octets)
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Cache<String, List<BookDTO>> cache;
+
+    public BookSearchCache(
+            @Value("${google.books.cache.ttl-seconds:600}") long ttlSeconds,
+            @Value("${google.books.cache.max-bytes:67108864}") long maxBytes,
+            MeterRegistry meterRegistry) {
+        // Caffeine : éviction W-TinyLFU bornée par un budget mémoire estimé
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumWeight(maxBytes)
+                .weigher((String key, List<BookDTO> books) -> estimateBytes(key, books))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "google.books.search");
+    }
+
+    public List<BookDTO> get(String query, int maxResults) {
+        List<BookDTO> books = cache.getIfPresent(key(query, maxResults));
+        return books != null ? new ArrayList<>(books) : null;
+    }
+
+    public void put(String query, int maxResults, List<BookDTO> books) {
+        cache.put(key(query, maxResults), List.copyOf(books));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    static String key(String query, int maxResults) {
+        // "Subject:Fantasy " et "subject:fantasy" partagent la même entrée
+        String normalized = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized + "|" + maxResults;
+    }
+
+    private static int estimateBytes(String key, List<BookDTO> books) {
+        long bytes = ENTRY_OVERHEAD + sizeOf(key);
+        for (BookDTO book : books) {
+            bytes += ENTRY_OVERHEAD
+                    + sizeOf(book.getGoogleBookId())
+                    + sizeOf(book.getTitle())
+                    + sizeOf(book.getDescription())
+                    + sizeOf(book.getThumbnailUrl())
+                    + sizeOf(book.getPublishedDate())
+                    + sizeOf(book.getLanguage())
+                    + sizeOf(book.getAuthors())
+                    + sizeOf(book.getCategories());
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : 40L + value.length();
+    }
+
+    private static long sizeOf(List<String> values) {
+        if (values == null) return 0;
+        long bytes = 16;
+        for (String value : values) {
+            bytes += sizeOf(value);
+        }
+        return bytes;
+    }
+}
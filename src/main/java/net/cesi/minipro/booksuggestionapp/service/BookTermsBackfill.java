@@ -0,0 +1,71 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.models.DataMigration;
+import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import net.cesi.minipro.booksuggestionapp.repository.DataMigrationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Migration de données : remplit book_authors / book_categories pour les livres déjà en base.
+// Exécutée une seule fois, en arrière-plan ; relancée au démarrage suivant si elle a échoué.
+@Service
+public class BookTermsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(BookTermsBackfill.class);
+
+    static final String MIGRATION_NAME = "backfill-book-terms";
+
+    private final BookRepository bookRepository;
+    private final DataMigrationRepository dataMigrationRepository;
+    private final Executor backgroundExecutor;
+
+    public BookTermsBackfill(
+            BookRepository bookRepository,
+            DataMigrationRepository dataMigrationRepository,
+            @Qualifier("backgroundExecutor") Executor backgroundExecutor) {
+        this.bookRepository = bookRepository;
+        this.dataMigrationRepository = dataMigrationRepository;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (dataMigrationRepository.existsById(MIGRATION_NAME)) return;
+        backgroundExecutor.execute(this::backfill);
+    }
+
+    void backfill() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int books = 0;
+        int rows = 0;
+
+        try {
+            List<Book> page;
+            do {
+                page = bookRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+                if (page.isEmpty()) break;
+
+                // INSERT IGNORE : sans effet sur les livres déjà traités (reprise après échec)
+                rows += bookRepository.insertTerms(page);
+                lastId = page.get(page.size() - 1).getId();
+                books += page.size();
+            } while (page.size() == 1000);
+
+            dataMigrationRepository.save(new DataMigration(MIGRATION_NAME, LocalDateTime.now()));
+            log.info("Backfilled {} author/category rows for {} books in {} ms",
+                    rows, books, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Error backfilling book authors/categories after book {}: {}", lastId, e.getMessage());
+        }
+    }
+}
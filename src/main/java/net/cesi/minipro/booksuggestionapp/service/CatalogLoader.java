@@ -0,0 +1,195 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.event.BooksCachedEvent;
+import net.cesi.minipro.booksuggestionapp.index.BookTextIndex;
+import net.cesi.minipro.booksuggestionapp.index.CatalogSnapshot;
+import net.cesi.minipro.booksuggestionapp.index.SimilarBooksIndex;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Charge le catalogue local (table books) dans les index en mémoire au démarrage.
+// Avec un instantané sur disque, seules les lignes mises en cache depuis son écriture sont relues en base.
+@Service
+public class CatalogLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogLoader.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookTextIndex textIndex;
+    private final SimilarBooksIndex similarBooksIndex;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${catalog.snapshot.path:data/catalog.snapshot}")
+    private String snapshotPath;
+
+    // Marge de rejeu : une ligne peut être validée après une autre dont le cachedAt est plus récent
+    @Value("${catalog.snapshot.replay-margin-seconds:300}")
+    private long replayMarginSeconds;
+
+    private volatile boolean loaded;
+
+    // cachedAt (epoch ms) jusqu'où la table books est chargée en mémoire
+    private volatile long watermark;
+
+    public CatalogLoader(
+            BookRepository bookRepository,
+            ApplicationEventPublisher eventPublisher,
+            BookTextIndex textIndex,
+            SimilarBooksIndex similarBooksIndex) {
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.textIndex = textIndex;
+        this.similarBooksIndex = similarBooksIndex;
+    }
+
+    // Avant les autres tâches de démarrage : le graphe de similarité ne peut être rechargé que vide
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog() {
+        long start = System.currentTimeMillis();
+
+        try {
+            int restored = snapshotEnabled ? loadSnapshot() : -1;
+            if (restored >= 0) {
+                int replayed = replay();
+                log.info("Loaded {} books from snapshot and {} changed rows from the database in {} ms",
+                        restored, replayed, System.currentTimeMillis() - start);
+            } else {
+                int total = loadAll();
+                log.info("Loaded {} books into local indexes in {} ms", total, System.currentTimeMillis() - start);
+            }
+            loaded = true;
+        } catch (Exception e) {
+            log.error("Error loading local catalog: {}", e.getMessage());
+        } finally {
+            // Les vecteurs de similarité attendaient l'IDF du catalogue complet
+            similarBooksIndex.onCatalogLoaded();
+        }
+    }
+
+    // Rattrape les lignes ajoutées par d'autres instances, puis réécrit l'instantané
+    @Scheduled(initialDelayString = "${catalog.snapshot.interval-ms:600000}",
+            fixedDelayString = "${catalog.snapshot.interval-ms:600000}")
+    public void writeSnapshot() {
+        if (!snapshotEnabled || !loaded) return;
+        long start = System.currentTimeMillis();
+
+        try {
+            int replayed = replay();
+            int written = CatalogSnapshot.write(Path.of(snapshotPath), textIndex, similarBooksIndex, watermark);
+            log.info("Wrote catalog snapshot of {} books ({} rows replayed from the database) in {} ms",
+                    written, replayed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Error writing catalog snapshot: {}", e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Nombre de livres relus, ou -1 sans instantané utilisable
+    private int loadSnapshot() {
+        Path file = Path.of(snapshotPath);
+        if (!Files.exists(file)) return -1;
+
+        CatalogSnapshot snapshot;
+        try {
+            snapshot = CatalogSnapshot.open(file);
+        } catch (IOException e) {
+            log.warn("Ignoring catalog snapshot {}: {}", file, e.getMessage());
+            return -1;
+        }
+
+        BookDTO[] books = snapshot.books();
+        if (!snapshot.restoreSimilarityGraph(similarBooksIndex, books)) {
+            log.info("Similarity graph not restored from snapshot, it will be rebuilt in the background");
+        }
+        List<BookDTO> all = Arrays.asList(books);
+        for (int from = 0; from < all.size(); from += PAGE_SIZE) {
+            eventPublisher.publishEvent(new BooksCachedEvent(all.subList(from, Math.min(from + PAGE_SIZE, all.size())), true));
+        }
+        watermark = snapshot.watermark();
+        return books.length;
+    }
+
+    private int loadAll() {
+        long lastId = 0;
+        int total = 0;
+
+        List<Book> page;
+        do {
+            page = bookRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+            if (page.isEmpty()) break;
+
+            publish(page);
+            lastId = page.get(page.size() - 1).getId();
+            total += page.size();
+        } while (page.size() == PAGE_SIZE);
+        return total;
+    }
+
+    // Lignes dont le cachedAt dépasse le dernier point chargé (moins la marge) ; les index ignorent les doublons
+    private int replay() {
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(watermark).minusSeconds(replayMarginSeconds), ZoneOffset.UTC);
+        LocalDateTime lastCachedAt = since;
+        long lastId = 0;
+        int total = 0;
+
+        List<Book> page;
+        do {
+            page = bookRepository.findCachedSince(lastCachedAt, lastId, Limit.of(PAGE_SIZE));
+            if (page.isEmpty()) break;
+
+            publish(page);
+            Book last = page.get(page.size() - 1);
+            lastCachedAt = last.getCachedAt();
+            lastId = last.getId();
+            total += page.size();
+        } while (page.size() == PAGE_SIZE);
+        return total;
+    }
+
+    private void publish(List<Book> page) {
+        List<BookDTO> books = page.stream()
+                .map(BookMapper::toBookDTO)
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(new BooksCachedEvent(books, true));
+
+        long latest = watermark;
+        for (Book book : page) {
+            if (book.getCachedAt() != null) {
+                latest = Math.max(latest, book.getCachedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+            }
+        }
+        watermark = latest;
+    }
+}
@@ -0,0 +1,61 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.index.BookTextIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Recherche "local d'abord" : l'index du catalogue répond, Google Books seulement si le rappel est trop faible
+@Service
+public class CatalogSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchService.class);
+
+    public static final String MODE_UPSTREAM = "upstream";
+    public static final String MODE_LOCAL = "local";
+    public static final String MODE_AUTO = "auto";
+
+    private final BookTextIndex textIndex;
+    private final CatalogLoader catalogLoader;
+    private final GoogleBooksApiService googleBooksService;
+
+    @Value("${search.local.min-hits:10}")
+    private int minLocalHits;
+
+    public CatalogSearchService(
+            BookTextIndex textIndex,
+            CatalogLoader catalogLoader,
+            GoogleBooksApiService googleBooksService) {
+        this.textIndex = textIndex;
+        this.catalogLoader = catalogLoader;
+        this.googleBooksService = googleBooksService;
+    }
+
+    public List<BookDTO> search(String query, int maxResults, String mode) {
+        if (MODE_UPSTREAM.equalsIgnoreCase(mode)) {
+            return googleBooksService.searchBooks(query, maxResults);
+        }
+
+        if (MODE_LOCAL.equalsIgnoreCase(mode)) {
+            return textIndex.search(query, maxResults);
+        }
+
+        // Les opérateurs Google (subject:, inauthor:...) ne sont pas gérés localement
+        if (query.contains(":") || !catalogLoader.isLoaded()) {
+            return googleBooksService.searchBooks(query, maxResults);
+        }
+
+        List<BookDTO> localBooks = textIndex.search(query, maxResults);
+        if (localBooks.size() >= Math.min(maxResults, minLocalHits)) {
+            log.info("Local index answered query '{}' with {} books", query, localBooks.size());
+            return localBooks;
+        }
+
+        log.info("Local recall too low for '{}' ({} books), calling Google Books", query, localBooks.size());
+        return googleBooksService.searchBooks(query, maxResults);
+    }
+}
@@ -0,0 +1,212 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.client.UpstreamUnavailableException;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
+import net.cesi.minipro.booksuggestionapp.index.GenreTaxonomy;
+import net.cesi.minipro.booksuggestionapp.repository.PreferenceCountView;
+import net.cesi.minipro.booksuggestionapp.repository.PreferenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Pré-chargement du catalogue : genres connus (taxonomie + préférences les plus choisies) et auteurs favoris,
+// interrogés comme le fait le fan-out des recommandations pour remplir books et le cache de recherche.
+// S'exécute sur son propre exécuteur, en file basse priorité du quota Google Books.
+@Service
+public class CatalogWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+
+    private final GoogleBooksApiService googleBooksService;
+    private final GenreTaxonomy genreTaxonomy;
+    private final PreferenceRepository preferenceRepository;
+    private final Executor warmupExecutor;
+
+    @Value("${catalog.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.warmup.top-genres:20}")
+    private int topGenres;
+
+    @Value("${catalog.warmup.top-authors:20}")
+    private int topAuthors;
+
+    // Part des recherches ayant rapporté des livres avant de se déclarer prêt (sonde readiness)
+    @Value("${catalog.warmup.ready-threshold:0.8}")
+    private double readyThreshold;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger empty = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger runs = new AtomicInteger();
+    private volatile boolean firstRunFinished;
+    // Dernier passage terminé sous le seuil (Google Books indisponible, quota épuisé...)
+    private volatile boolean degraded;
+    private volatile Instant lastStarted;
+    private volatile Instant lastFinished;
+
+    public CatalogWarmup(
+            GoogleBooksApiService googleBooksService,
+            GenreTaxonomy genreTaxonomy,
+            PreferenceRepository preferenceRepository,
+            @Qualifier("warmupExecutor") Executor warmupExecutor) {
+        this.googleBooksService = googleBooksService;
+        this.genreTaxonomy = genreTaxonomy;
+        this.preferenceRepository = preferenceRepository;
+        this.warmupExecutor = warmupExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) schedule();
+    }
+
+    @Scheduled(initialDelayString = "${catalog.warmup.interval-ms:1800000}",
+            fixedDelayString = "${catalog.warmup.interval-ms:1800000}")
+    public void refresh() {
+        if (enabled) schedule();
+    }
+
+    // Prêt dès que le seuil de recherches ayant rapporté des livres est atteint (les recherches vides,
+    // refusées ou en échec ne comptent pas). Une première passe terminée sous le seuil rend le service
+    // disponible quand même, en mode dégradé, pour ne pas bloquer le trafic pendant une panne de Google Books.
+    public boolean isReady() {
+        if (!enabled || firstRunFinished) return true;
+        return thresholdReached();
+    }
+
+    public boolean isDegraded() {
+        return enabled && degraded;
+    }
+
+    private boolean thresholdReached() {
+        int tasks = total.get();
+        return tasks > 0 && succeeded.get() >= Math.ceil(tasks * readyThreshold);
+    }
+
+    public Map<String, Object> progress() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", enabled);
+        details.put("running", running.get());
+        details.put("runs", runs.get());
+        details.put("total", total.get());
+        details.put("completed", completed.get());
+        details.put("succeeded", succeeded.get());
+        details.put("empty", empty.get());
+        details.put("failed", failed.get());
+        details.put("degraded", isDegraded());
+        details.put("readyThreshold", readyThreshold);
+        if (lastStarted != null) details.put("lastStarted", lastStarted.toString());
+        if (lastFinished != null) details.put("lastFinished", lastFinished.toString());
+        return details;
+    }
+
+    private void schedule() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            warmupExecutor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            log.warn("Warm-up queue full, catalog warm-up postponed");
+        }
+    }
+
+    void run() {
+        long start = System.currentTimeMillis();
+        lastStarted = Instant.now();
+        runs.incrementAndGet();
+        completed.set(0);
+        succeeded.set(0);
+        empty.set(0);
+        failed.set(0);
+
+        try {
+            List<String> genres = genres();
+            List<String> authors = popular(PreferenceType.AUTHOR, topAuthors);
+            total.set(genres.size() + authors.size());
+            log.info("Catalog warm-up: {} genres, {} authors", genres.size(), authors.size());
+
+            // Mêmes appels et tailles que le fan-out : les clés du cache de recherche correspondent
+            for (String genre : genres) {
+                record(() -> googleBooksService.searchByGenreAsync(genre, 40).block());
+            }
+            for (String author : authors) {
+                record(() -> googleBooksService.searchByAuthorAsync(author, 20).block());
+            }
+
+            log.info("Catalog warm-up finished: {}/{} searches returned books ({} empty, {} failed) in {} ms",
+                    succeeded.get(), total.get(), empty.get(), failed.get(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Error during catalog warm-up after {} searches: {}", completed.get(), e.getMessage());
+        } finally {
+            degraded = !thresholdReached();
+            if (degraded) {
+                log.warn("Catalog warm-up below its ready threshold: {}/{} searches returned books",
+                        succeeded.get(), total.get());
+            }
+            lastFinished = Instant.now();
+            firstRunFinished = true;
+            running.set(false);
+        }
+    }
+
+    // Recherche stricte : une indisponibilité de Google Books est un échec, pas une recherche vide
+    private void record(Supplier<List<BookDTO>> search) {
+        try {
+            List<BookDTO> books = search.get();
+            if (books == null || books.isEmpty()) {
+                empty.incrementAndGet();
+            } else {
+                succeeded.incrementAndGet();
+            }
+        } catch (UpstreamUnavailableException e) {
+            failed.incrementAndGet();
+        }
+        completed.incrementAndGet();
+    }
+
+    // Genres des préférences d'abord (les plus demandés), puis ceux de la taxonomie ; sans doublon de casse
+    private List<String> genres() {
+        Map<String, String> genres = new LinkedHashMap<>();
+        for (String genre : popular(PreferenceType.GENRE, topGenres)) {
+            genres.putIfAbsent(genre.trim().toLowerCase(Locale.ROOT), genre.trim());
+        }
+        for (String genre : genreTaxonomy.genreNames()) {
+            genres.putIfAbsent(genre.toLowerCase(Locale.ROOT), genre);
+        }
+        return new ArrayList<>(genres.values());
+    }
+
+    private List<String> popular(PreferenceType type, int limit) {
+        if (limit <= 0) return List.of();
+        List<String> values = new ArrayList<>();
+        for (PreferenceCountView view : preferenceRepository.findMostPopular(type, Limit.of(limit))) {
+            if (view.getPreferenceValue() != null && !view.getPreferenceValue().isBlank()) {
+                values.add(view.getPreferenceValue());
+            }
+        }
+        return values;
+    }
+}
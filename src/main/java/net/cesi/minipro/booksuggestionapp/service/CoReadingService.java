@@ -0,0 +1,110 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.index.CoOccurrenceIndex;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import net.cesi.minipro.booksuggestionapp.repository.ReadingHistoryRepository;
+import net.cesi.minipro.booksuggestionapp.repository.ReadingPairView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Recommandations "les lecteurs de X ont aussi lu", sans appel à Google Books
+@Service
+public class CoReadingService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoReadingService.class);
+
+    private static final int PAGE_SIZE = 5000;
+
+    private final CoOccurrenceIndex index;
+    private final ReadingHistoryRepository readingHistoryRepository;
+    private final BookRepository bookRepository;
+
+    private volatile boolean loaded;
+
+    public CoReadingService(
+            CoOccurrenceIndex index,
+            ReadingHistoryRepository readingHistoryRepository,
+            BookRepository bookRepository) {
+        this.index = index;
+        this.readingHistoryRepository = readingHistoryRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    // Rejoue reading_history par pages ; les ajouts concurrents passent par l'événement (ajout idempotent)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHistory() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+
+        try {
+            List<ReadingPairView> page;
+            do {
+                page = readingHistoryRepository.findPairsAfter(lastId, Limit.of(PAGE_SIZE));
+                for (ReadingPairView pair : page) {
+                    index.add(pair.getUserId(), pair.getBookId());
+                }
+                if (!page.isEmpty()) lastId = page.get(page.size() - 1).getId();
+                total += page.size();
+            } while (page.size() == PAGE_SIZE);
+
+            index.compact();
+            loaded = true;
+            log.info("Loaded {} library entries ({} books) into the co-reading index in {} ms",
+                    total, index.itemCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Error loading reading history: {}", e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Livres lus par les lecteurs de googleBookId ; le score porte la similarité
+    public List<BookDTO> alsoRead(String googleBookId, int limit) {
+        return bookRepository.findByGoogleBookId(googleBookId)
+                .map(book -> toBooks(index.alsoRead(book.getId(), limit)))
+                .orElse(List.of());
+    }
+
+    // Candidats issus de la bibliothèque de l'utilisateur (livres déjà possédés exclus)
+    public List<BookDTO> candidatesFor(Long userId, int limit) {
+        return toBooks(index.recommendFor(userId, limit));
+    }
+
+    // Une seule requête pour charger les livres, dans l'ordre du classement
+    private List<BookDTO> toBooks(List<CoOccurrenceIndex.Neighbor> neighbors) {
+        if (neighbors.isEmpty()) return List.of();
+
+        List<Long> ids = new ArrayList<>(neighbors.size());
+        for (CoOccurrenceIndex.Neighbor neighbor : neighbors) {
+            ids.add(neighbor.bookId());
+        }
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            books.put(book.getId(), book);
+        }
+
+        List<BookDTO> result = new ArrayList<>(neighbors.size());
+        for (CoOccurrenceIndex.Neighbor neighbor : neighbors) {
+            Book book = books.get(neighbor.bookId());
+            if (book == null) continue;
+            BookDTO dto = BookMapper.toBookDTO(book);
+            dto.setRecommendationScore(neighbor.score());
+            result.add(dto);
+        }
+        return result;
+    }
+}
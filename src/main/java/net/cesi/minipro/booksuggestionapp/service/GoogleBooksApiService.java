@@ -1,17 +1,33 @@
 package net.cesi.minipro.booksuggestionapp.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.cesi.minipro.booksuggestionapp.client.CircuitBreaker;
+import net.cesi.minipro.booksuggestionapp.client.GoogleBooksClient;
+import net.cesi.minipro.booksuggestionapp.client.SingleFlight;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamContext;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamScheduler;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamUnavailableException;
 import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
-import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.event.BooksCachedEvent;
+import net.cesi.minipro.booksuggestionapp.index.GenreTaxonomy;
+import net.cesi.minipro.booksuggestionapp.metrics.UpstreamCallContext;
 import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,171 +35,287 @@ public class GoogleBooksApiService {
 
     private static final Logger log = LoggerFactory.getLogger(GoogleBooksApiService.class);
 
-    @Value("${google.books.api.url}")
-    private String apiBaseUrl;
-
-    private final RestTemplate restTemplate;
+    private final GoogleBooksClient googleBooksClient;
     private final BookRepository bookRepository;
-
-    public GoogleBooksApiService(BookRepository bookRepository) {
-        this.restTemplate = new RestTemplate();
+    private final BookSearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GenreTaxonomy genreTaxonomy;
+    private final UpstreamScheduler upstreamScheduler;
+
+    private final SingleFlight<String, List<BookDTO>> inFlightSearches = new SingleFlight<>();
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheInserts;
+
+    public GoogleBooksApiService(
+            GoogleBooksClient googleBooksClient,
+            BookRepository bookRepository,
+            BookSearchCache searchCache,
+            ApplicationEventPublisher eventPublisher,
+            GenreTaxonomy genreTaxonomy,
+            UpstreamScheduler upstreamScheduler,
+            MeterRegistry meterRegistry,
+            @Value("${google.books.circuit.failure-threshold:5}") int circuitFailureThreshold,
+            @Value("${google.books.circuit.open-seconds:30}") long circuitOpenSeconds) {
+        this.googleBooksClient = googleBooksClient;
+        this.circuitBreaker = new CircuitBreaker("google-books", circuitFailureThreshold, Duration.ofSeconds(circuitOpenSeconds));
         this.bookRepository = bookRepository;
+        this.searchCache = searchCache;
+        this.eventPublisher = eventPublisher;
+        this.genreTaxonomy = genreTaxonomy;
+        this.upstreamScheduler = upstreamScheduler;
+        this.meterRegistry = meterRegistry;
+        this.cacheInserts = Counter.builder("books.cache.inserts")
+                .description("Books inserted into the local catalog")
+                .register(meterRegistry);
     }
 
     public List<BookDTO> searchBooks(String query, int maxResults) {
-        try {
-            // Limiter à 40 (max de Google Books par requête)
-            int resultsToFetch = Math.min(maxResults, 40);
+        return orPartialResults(searchBooksAsync(query, maxResults)).block();
+    }
 
-            String url = String.format("%s?q=%s&maxResults=%d&orderBy=relevance",
-                    apiBaseUrl,
-                    URLEncoder.encode(query, StandardCharsets.UTF_8),
-                    resultsToFetch
-            );
+    public CompletableFuture<List<BookDTO>> searchBooksFuture(String query, int maxResults) {
+        return searchBooksAsync(query, maxResults).toFuture();
+    }
 
-            log.info("Calling Google Books API: {}", url);
+    // Variante non bloquante ; la priorité, l'échéance et le compteur d'appels du thread appelant sont capturés ici.
+    // Échoue avec UpstreamUnavailableException si Google Books n'a pas pu être interrogé.
+    public Mono<List<BookDTO>> searchBooksAsync(String query, int maxResults) {
+        return search(query, maxResults, UpstreamContext.current(), UpstreamCallContext.wrap(UpstreamCallContext::recordCall));
+    }
 
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+    // Variantes synchrones : une indisponibilité de Google Books donne les livres déjà obtenus (souvent aucun)
+    private static Mono<List<BookDTO>> orPartialResults(Mono<List<BookDTO>> search) {
+        return search.onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(e.getPartialResults()));
+    }
 
-            if (response == null || !response.containsKey("items")) {
-                log.warn("No items found for query: {}", query);
-                return new ArrayList<>();
-            }
+    private Mono<List<BookDTO>> search(String query, int maxResults, UpstreamContext context, Runnable recordCall) {
+        // Limiter à 40 (max de Google Books par requête)
+        int resultsToFetch = Math.min(maxResults, 40);
 
-            List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
+        List<BookDTO> cached = searchCache.get(query, resultsToFetch);
+        if (cached != null) {
+            log.debug("Cache hit for query: {}", query);
+            return Mono.just(cached);
+        }
 
-            return items.stream()
-                    .map(this::convertToBookDTO)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+        // Les appels identiques simultanés de même priorité partagent la même requête Google Books :
+        // un appel interactif ne rejoint jamais un appel de fond, qui attend son quota dans la file basse
+        boolean[] leader = {false};
+        CompletableFuture<List<BookDTO>> books = inFlightSearches.executeAsync(
+                BookSearchCache.key(query, resultsToFetch) + "|" + context.priority(),
+                () -> {
+                    leader[0] = true;
+                    return fetchBooks(query, resultsToFetch, context, recordCall).toFuture();
+                });
+        Mono<List<BookDTO>> shared = Mono.fromFuture(books);
+        if (!leader[0]) {
+            // Refus lié à l'échéance ou au quota de l'appelant qui a lancé la requête : nouvel essai avec les siens
+            shared = shared.onErrorResume(CallerRejectedException.class,
+                    e -> fetchBooks(query, resultsToFetch, context, recordCall));
+        }
+        return shared.map(ArrayList::new);
+    }
 
-        } catch (Exception e) {
-            log.error("Error searching books: {}", e.getMessage());
-            return new ArrayList<>();
+    private Mono<List<BookDTO>> fetchBooks(String query, int resultsToFetch, UpstreamContext context, Runnable recordCall) {
+        // Un appel concurrent a pu remplir le cache entre-temps
+        List<BookDTO> cached = searchCache.get(query, resultsToFetch);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        String kind = queryKind(query);
+        // Échéance déjà passée (variante suivante d'une recherche composée) : aucun appel
+        if (deadlinePassed(context)) {
+            meterRegistry.counter("google.books.api.rejected", "kind", kind, "reason", "deadline").increment();
+            return Mono.error(new CallerRejectedException("Caller deadline already passed"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("Google Books circuit open, skipping query: {}", query);
+            meterRegistry.counter("google.books.api.rejected", "kind", kind, "reason", "circuit_open").increment();
+            return Mono.error(new UpstreamUnavailableException("Google Books circuit open"));
         }
+
+        // Quota partagé : refus immédiat si le jeton n'arrive pas avant l'échéance de l'appelant
+        return upstreamScheduler.acquireAsync(context.priority(), context.deadlineNanos()).flatMap(admitted -> {
+            if (!admitted) {
+                circuitBreaker.onIgnored();
+                log.warn("Google Books quota exhausted for {} call, skipping query: {}", context.priority(), query);
+                meterRegistry.counter("google.books.api.rejected", "kind", kind, "reason", "quota").increment();
+                return Mono.<List<BookDTO>>error(new CallerRejectedException("Google Books quota exhausted"));
+            }
+
+            recordCall.run();
+            log.info("Calling Google Books API: q={}, maxResults={}", query, resultsToFetch);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return googleBooksClient.searchVolumes(query, resultsToFetch, context)
+                    // Écritures en base hors des threads réseau
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(books -> {
+                        circuitBreaker.onSuccess();
+                        if (books.isEmpty()) {
+                            stop(sample, kind, "empty");
+                            log.warn("No items found for query: {}", query);
+                            searchCache.put(query, resultsToFetch, List.of());
+                            return books;
+                        }
+                        stop(sample, kind, "success");
+
+                        // Cache les livres de la page en une seule passe
+                        cacheBooksIfNotExist(books);
+
+                        // Les erreurs ne sont pas mises en cache, seulement les réponses valides
+                        searchCache.put(query, resultsToFetch, books);
+                        return books;
+                    })
+                    .onErrorResume(e -> {
+                        if (e instanceof TimeoutException && deadlinePassed(context)) {
+                            // Délai coupé par l'échéance de l'appelant : ce n'est pas une panne de Google Books
+                            stop(sample, kind, "deadline");
+                            circuitBreaker.onIgnored();
+                            log.warn("Google Books call abandoned at the caller's deadline: {}", query);
+                            return Mono.error(new CallerRejectedException("Google Books call exceeded the caller's deadline"));
+                        }
+                        log.error("Error searching books: {}", e.getMessage());
+                        if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                            stop(sample, kind, "client_error");
+                            // Requête invalide : Google Books répond, seul le quota (429) compte comme panne
+                            if (response.getStatusCode().value() != 429) {
+                                circuitBreaker.onIgnored();
+                                return Mono.just(List.of());
+                            }
+                        } else {
+                            stop(sample, kind, "error");
+                        }
+                        circuitBreaker.onFailure();
+                        return Mono.error(new UpstreamUnavailableException("Error searching books: " + e.getMessage()));
+                    });
+        });
     }
 
-    public List<BookDTO> searchByGenre(String genre, int maxResults) {
-        // Recherche multiple avec différentes variantes
-        Set<BookDTO> allBooks = new LinkedHashSet<>();
+    private static boolean deadlinePassed(UpstreamContext context) {
+        return context.deadlineNanos() != 0 && context.deadlineNanos() - System.nanoTime() <= 0;
+    }
 
-        // Stratégie 1: Subject exact
-        allBooks.addAll(searchBooks("subject:" + genre, maxResults));
+    private void stop(Timer.Sample sample, String kind, String outcome) {
+        sample.stop(Timer.builder("google.books.api.requests")
+                .description("Google Books API calls")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
 
-        // Stratégie 2: Dans le titre ou description (si pas assez de résultats)
-        if (allBooks.size() < maxResults / 2) {
-            allBooks.addAll(searchBooks(genre + " books", maxResults / 2));
-        }
+    // subject / inauthor / free_text : les latences Google Books diffèrent selon le type de requête
+    static String queryKind(String query) {
+        if (query.regionMatches(true, 0, "subject:", 0, 8)) return "subject";
+        if (query.regionMatches(true, 0, "inauthor:", 0, 9)) return "inauthor";
+        return "free_text";
+    }
 
-        // Stratégie 3: Termes similaires
-        List<String> similarTerms = getSimilarGenres(genre);
-        for (String term : similarTerms) {
-            if (allBooks.size() >= maxResults) break;
-            allBooks.addAll(searchBooks("subject:" + term, 10));
-        }
+    public List<BookDTO> searchByGenre(String genre, int maxResults) {
+        return orPartialResults(searchByGenreAsync(genre, maxResults)).block();
+    }
 
-        log.info("Found total {} books for genre: {}", allBooks.size(), genre);
+    public Mono<List<BookDTO>> searchByGenreAsync(String genre, int maxResults) {
+        // Les recherches suivantes partent d'autres threads : contexte de l'appelant capturé une fois
+        UpstreamContext context = UpstreamContext.current();
+        Runnable recordCall = UpstreamCallContext.wrap(UpstreamCallContext::recordCall);
+        return Mono.defer(() -> {
+            // Recherche multiple avec différentes variantes, chaque stratégie seulement si la précédente ne suffit pas
+            Set<BookDTO> allBooks = new LinkedHashSet<>();
+            // Une requête refusée n'arrête pas les suivantes ; l'échec est signalé à la fin avec les livres obtenus
+            UpstreamUnavailableException[] failure = {null};
+
+            // Stratégie 1: Subject exact
+            return tolerant(search("subject:" + genre, maxResults, context, recordCall), failure)
+                    .flatMap(books -> {
+                        allBooks.addAll(books);
+                        // Stratégie 2: Dans le titre ou description (si pas assez de résultats)
+                        if (allBooks.size() >= maxResults / 2) return Mono.just(allBooks);
+                        return tolerant(search(genre + " books", maxResults / 2, context, recordCall), failure).map(more -> {
+                            allBooks.addAll(more);
+                            return allBooks;
+                        });
+                    })
+                    // Stratégie 3: Termes similaires, l'un après l'autre
+                    .flatMap(books -> Flux.fromIterable(getSimilarGenres(genre))
+                            .concatMap(term -> allBooks.size() >= maxResults
+                                    ? Mono.<List<BookDTO>>empty()
+                                    : tolerant(search("subject:" + term, 10, context, recordCall), failure))
+                            .doOnNext(allBooks::addAll)
+                            .then(Mono.defer(() -> {
+                                log.info("Found total {} books for genre: {}", allBooks.size(), genre);
+                                List<BookDTO> found = allBooks.stream()
+                                        .limit(maxResults)
+                                        .collect(Collectors.toList());
+                                return failure[0] == null
+                                        ? Mono.just(found)
+                                        : Mono.error(new UpstreamUnavailableException(failure[0].getMessage(), found));
+                            })));
+        });
+    }
 
-        return new ArrayList<>(allBooks).stream()
-                .limit(maxResults)
-                .collect(Collectors.toList());
+    private static Mono<List<BookDTO>> tolerant(Mono<List<BookDTO>> search, UpstreamUnavailableException[] failure) {
+        return search.onErrorResume(UpstreamUnavailableException.class, e -> {
+            failure[0] = e;
+            return Mono.just(List.of());
+        });
     }
 
     public List<BookDTO> searchByAuthor(String author, int maxResults) {
+        return orPartialResults(searchByAuthorAsync(author, maxResults)).block();
+    }
+
+    public Mono<List<BookDTO>> searchByAuthorAsync(String author, int maxResults) {
         // Recherche avec "inauthor" (meilleure que subject)
-        return searchBooks("inauthor:" + author, maxResults);
+        return searchBooksAsync("inauthor:" + author, maxResults);
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
     }
 
     private List<String> getSimilarGenres(String genre) {
-        Map<String, List<String>> genreVariants = Map.ofEntries(
-                Map.entry("Self-Help", Arrays.asList("Personal Development", "Self Improvement", "Motivational")),
-                Map.entry("Business", Arrays.asList("Business & Economics", "Entrepreneurship", "Management", "Leadership")),
-                Map.entry("Science Fiction", Arrays.asList("Sci-Fi", "Speculative Fiction", "Cyberpunk", "Space Opera")),
-                Map.entry("Fantasy", Arrays.asList("Epic Fantasy", "Urban Fantasy", "Magic", "Wizards")),
-                Map.entry("Mystery", Arrays.asList("Detective", "Crime", "Suspense", "Whodunit")),
-                Map.entry("Thriller", Arrays.asList("Suspense", "Action", "Espionage", "Psychological Thriller")),
-                Map.entry("Romance", Arrays.asList("Love Stories", "Contemporary Romance", "Romantic Comedy")),
-                Map.entry("Horror", Arrays.asList("Scary", "Supernatural", "Gothic")),
-                Map.entry("Biography", Arrays.asList("Memoir", "Autobiography", "Life Stories")),
-                Map.entry("History", Arrays.asList("Historical", "World History", "Ancient History")),
-                Map.entry("Philosophy", Arrays.asList("Ethics", "Logic", "Metaphysics", "Existentialism")),
-                Map.entry("Poetry", Arrays.asList("Poems", "Verse", "Sonnets"))
-        );
-
-        return genreVariants.getOrDefault(genre, new ArrayList<>());
-    }
-
-    private BookDTO convertToBookDTO(Map<String, Object> item) {
-        try {
-            String googleBookId = (String) item.get("id");
-            Map<String, Object> volumeInfo = (Map<String, Object>) item.get("volumeInfo");
-
-            if (volumeInfo == null) return null;
-
-            BookDTO dto = BookDTO.builder()
-                    .googleBookId(googleBookId)
-                    .title((String) volumeInfo.get("title"))
-                    .authors((List<String>) volumeInfo.getOrDefault("authors", new ArrayList<>()))
-                    .description((String) volumeInfo.get("description"))
-                    .categories((List<String>) volumeInfo.getOrDefault("categories", new ArrayList<>()))
-                    .publishedDate((String) volumeInfo.get("publishedDate"))
-                    .pageCount((Integer) volumeInfo.get("pageCount"))
-                    .language((String) volumeInfo.get("language"))
-                    .build();
-
-            // Thumbnail
-            if (volumeInfo.containsKey("imageLinks")) {
-                Map<String, String> imageLinks = (Map<String, String>) volumeInfo.get("imageLinks");
-                dto.setThumbnailUrl(imageLinks.get("thumbnail"));
-            }
+        return genreTaxonomy.searchVariants(genre);
+    }
 
-            // Rating
-            if (volumeInfo.containsKey("averageRating")) {
-                Object rating = volumeInfo.get("averageRating");
-                if (rating instanceof Integer) {
-                    dto.setAverageRating(((Integer) rating).doubleValue());
-                } else if (rating instanceof Double) {
-                    dto.setAverageRating((Double) rating);
+    private void cacheBooksIfNotExist(List<BookDTO> books) {
+        try {
+            // Dédoublonnage dans la page ; titre obligatoire en base
+            Map<String, BookDTO> candidates = new LinkedHashMap<>();
+            for (BookDTO dto : books) {
+                if (dto.getGoogleBookId() != null && dto.getTitle() != null) {
+                    candidates.putIfAbsent(dto.getGoogleBookId(), dto);
                 }
             }
+            if (candidates.isEmpty()) return;
 
-            // Cache le livre
-            cacheBookIfNotExists(dto);
+            // Une seule requête IN pour trouver les livres déjà en base
+            Set<String> existing = new HashSet<>(bookRepository.findExistingGoogleBookIds(candidates.keySet()));
 
-            return dto;
+            List<BookDTO> missing = candidates.values().stream()
+                    .filter(dto -> !existing.contains(dto.getGoogleBookId()))
+                    .collect(Collectors.toList());
+            if (missing.isEmpty()) return;
 
-        } catch (Exception e) {
-            log.error("Error converting book: {}", e.getMessage());
-            return null;
-        }
-    }
+            // INSERT IGNORE : sans risque si une autre requête insère les mêmes livres en parallèle
+            int inserted = bookRepository.insertIgnoreAll(missing.stream()
+                    .map(BookMapper::toBook)
+                    .collect(Collectors.toList()));
+            cacheInserts.increment(inserted);
+            log.debug("Cached {} new books ({} already present)", inserted, existing.size());
 
-    private void cacheBookIfNotExists(BookDTO dto) {
-        try {
-            if (!bookRepository.existsByGoogleBookId(dto.getGoogleBookId())) {
-                Book book = Book.builder()
-                        .googleBookId(dto.getGoogleBookId())
-                        .title(dto.getTitle())
-                        .authors(convertListToJson(dto.getAuthors()))
-                        .description(dto.getDescription())
-                        .categories(convertListToJson(dto.getCategories()))
-                        .thumbnailUrl(dto.getThumbnailUrl())
-                        .averageRating(dto.getAverageRating())
-                        .publishedDate(dto.getPublishedDate())
-                        .pageCount(dto.getPageCount())
-                        .language(dto.getLanguage())
-                        .build();
-
-                bookRepository.save(book);
-                log.debug("Cached book: {}", book.getTitle());
-            }
+            // Mise à jour incrémentale des index locaux
+            eventPublisher.publishEvent(new BooksCachedEvent(missing, false));
         } catch (Exception e) {
-            log.error("Error caching book: {}", e.getMessage());
+            log.error("Error caching books: {}", e.getMessage());
         }
     }
 
-    private String convertListToJson(List<String> list) {
-        if (list == null || list.isEmpty()) return "[]";
-        return "[\"" + String.join("\",\"", list) + "\"]";
+    // Refus propre à l'appelant (échéance, quota de sa file) : pas partagé avec les appels qui l'ont rejoint
+    private static final class CallerRejectedException extends UpstreamUnavailableException {
+        CallerRejectedException(String message) {
+            super(message);
+        }
     }
-}
\ No newline at end of file
+}
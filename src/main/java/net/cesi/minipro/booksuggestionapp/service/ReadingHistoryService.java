@@ -1,15 +1,21 @@
 package net.cesi.minipro.booksuggestionapp.service;
 
+import net.cesi.minipro.booksuggestionapp.dto.LibraryPage;
 import net.cesi.minipro.booksuggestionapp.dto.ReadingHistoryDTO;
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
+import net.cesi.minipro.booksuggestionapp.event.LibraryChangedEvent;
 import net.cesi.minipro.booksuggestionapp.models.Book;
 import net.cesi.minipro.booksuggestionapp.models.ReadingHistory;
 import net.cesi.minipro.booksuggestionapp.models.User;
 import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import net.cesi.minipro.booksuggestionapp.repository.LibraryEntryView;
 import net.cesi.minipro.booksuggestionapp.repository.ReadingHistoryRepository;
 import net.cesi.minipro.booksuggestionapp.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,28 +28,67 @@ public class ReadingHistoryService {
 
     private static final Logger log = LoggerFactory.getLogger(ReadingHistoryService.class);
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ReadingHistoryRepository readingHistoryRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ReadingHistoryService(
             ReadingHistoryRepository readingHistoryRepository,
             UserRepository userRepository,
-            BookRepository bookRepository) {
+            BookRepository bookRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.readingHistoryRepository = readingHistoryRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ReadingHistoryDTO> getUserLibrary(Long userId) {
-        List<ReadingHistory> history = readingHistoryRepository.findByUserId(userId);
+        // Une seule requête avec jointure, sans charger les entités User/Book
+        List<LibraryEntryView> entries = readingHistoryRepository.findLibrary(userId, null, Limit.unlimited());
 
-        return history.stream()
-                .map(this::convertToDTO)
+        return entries.stream()
+                .map(entry -> convertToDTO(userId, entry))
                 .collect(Collectors.toList());
     }
 
+    // Pagination par curseur (addedAt, id) : coût constant quelle que soit la taille de la bibliothèque
+    public LibraryPage getUserLibraryPage(Long userId, ReadingStatus status, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Une ligne de plus pour savoir s'il reste une page
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<LibraryEntryView> entries;
+        if (cursor == null || cursor.isBlank()) {
+            entries = readingHistoryRepository.findLibrary(userId, status, limit);
+        } else {
+            LibraryCursor position = LibraryCursor.decode(cursor);
+            entries = readingHistoryRepository.findLibraryAfter(userId, status, position.addedAt(), position.id(), limit);
+        }
+
+        boolean hasMore = entries.size() > pageSize;
+        List<ReadingHistoryDTO> items = entries.stream()
+                .limit(pageSize)
+                .map(entry -> convertToDTO(userId, entry))
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            ReadingHistoryDTO last = items.get(items.size() - 1);
+            nextCursor = new LibraryCursor(last.getAddedAt(), last.getId()).encode();
+        }
+
+        return LibraryPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Transactional
     public ReadingHistoryDTO addToLibrary(Long userId, String googleBookId) {
         // Vérifier si l'utilisateur existe
@@ -64,9 +109,11 @@ public class ReadingHistoryService {
         ReadingHistory history = new ReadingHistory();
         history.setUser(user);
         history.setBook(book);
+        history.setStatus(ReadingStatus.WISHLIST);
         history.setAddedAt(LocalDateTime.now());
 
         history = readingHistoryRepository.save(history);
+        eventPublisher.publishEvent(new LibraryChangedEvent(userId, book.getId(), true));
 
         log.info("Added book {} to library for user {}", book.getTitle(), userId);
 
@@ -79,24 +126,35 @@ public class ReadingHistoryService {
                 .orElseThrow(() -> new RuntimeException("Book not found in your library"));
 
         readingHistoryRepository.delete(history);
+        eventPublisher.publishEvent(new LibraryChangedEvent(userId, bookId, false));
         log.info("Removed book from library for user {}", userId);
     }
 
-    private ReadingHistoryDTO convertToDTO(ReadingHistory history) {
+    ReadingHistoryDTO convertToDTO(ReadingHistory history) {
         ReadingHistoryDTO dto = new ReadingHistoryDTO();
         dto.setId(history.getId());
         dto.setUserId(history.getUser().getId());
         dto.setBookId(history.getBook().getId());
         dto.setGoogleBookId(history.getBook().getGoogleBookId());
         dto.setTitle(history.getBook().getTitle());
-        dto.setAuthors(parseJsonArray(history.getBook().getAuthors()));
+        dto.setAuthors(BookMapper.parseJsonArray(history.getBook().getAuthors()));
         dto.setThumbnailUrl(history.getBook().getThumbnailUrl());
+        dto.setStatus(history.getStatus());
         dto.setAddedAt(history.getAddedAt());
         return dto;
     }
 
-    private List<String> parseJsonArray(String json) {
-        if (json == null || json.equals("[]")) return List.of();
-        return List.of(json.replace("[", "").replace("]", "").replace("\"", "").split(","));
+    private ReadingHistoryDTO convertToDTO(Long userId, LibraryEntryView entry) {
+        return ReadingHistoryDTO.builder()
+                .id(entry.getId())
+                .userId(userId)
+                .bookId(entry.getBookId())
+                .googleBookId(entry.getGoogleBookId())
+                .title(entry.getTitle())
+                .authors(BookMapper.parseJsonArray(entry.getAuthors()))
+                .thumbnailUrl(entry.getThumbnailUrl())
+                .status(entry.getStatus())
+                .addedAt(entry.getAddedAt())
+                .build();
     }
 }
\ No newline at end of file
@@ -1,133 +1,451 @@
 package net.cesi.minipro.booksuggestionapp.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamContext;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamUnavailableException;
 import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
-import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
-import net.cesi.minipro.booksuggestionapp.models.Preference;
-import net.cesi.minipro.booksuggestionapp.repository.PreferenceRepository;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationResult;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationUpdate;
+import net.cesi.minipro.booksuggestionapp.index.GenreTaxonomy;
+import net.cesi.minipro.booksuggestionapp.metrics.UpstreamCallContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class RecommendationService {
 
     private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
 
+    // Candidats issus des bibliothèques des autres lecteurs
+    private static final int CO_READ_CANDIDATES = 50;
+    // Bonus du livre le plus co-lu ; les autres en proportion de leur similarité
+    private static final double CO_READ_WEIGHT = 40;
+
     private final GoogleBooksApiService googleBooksService;
-    private final PreferenceRepository preferenceRepository;
+    private final UserCache userCache;
+    private final GenreTaxonomy genreTaxonomy;
+    private final CoReadingService coReadingService;
+
+    private final Timer preferencesStage;
+    private final Timer historyStage;
+    private final Timer candidatesStage;
+    private final Timer scoringStage;
+    private final Timer backfillStage;
+    private final DistributionSummary candidateSizes;
+
+    @Value("${recommendation.fanout.enabled:true}")
+    private boolean fanoutEnabled;
+
+    @Value("${recommendation.fanout.timeout-ms:4000}")
+    private long fanoutTimeoutMs;
 
     @Autowired
     public RecommendationService(
             GoogleBooksApiService googleBooksService,
-            PreferenceRepository preferenceRepository) {
+            UserCache userCache,
+            GenreTaxonomy genreTaxonomy,
+            CoReadingService coReadingService,
+            MeterRegistry meterRegistry) {
         this.googleBooksService = googleBooksService;
-        this.preferenceRepository = preferenceRepository;
+        this.userCache = userCache;
+        this.genreTaxonomy = genreTaxonomy;
+        this.coReadingService = coReadingService;
+        this.preferencesStage = stageTimer(meterRegistry, "preferences");
+        this.historyStage = stageTimer(meterRegistry, "history");
+        this.candidatesStage = stageTimer(meterRegistry, "candidates");
+        this.scoringStage = stageTimer(meterRegistry, "scoring");
+        this.backfillStage = stageTimer(meterRegistry, "backfill");
+        this.candidateSizes = DistributionSummary.builder("recommendation.candidates")
+                .description("Candidate books scored per recommendation")
+                .register(meterRegistry);
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("recommendation.stage")
+                .description("Time spent in each recommendation stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
     }
 
     public List<BookDTO> getRecommendations(Long userId, int limit) {
+        return getRecommendationResult(userId, limit).getBooks();
+    }
+
+    public RecommendationResult getRecommendationResult(Long userId, int limit) {
         log.info("Getting recommendations for user: {}", userId);
 
-        List<Preference> preferences = preferenceRepository.findByUserId(userId);
+        // Préférences déjà séparées par type, en cache pour les utilisateurs actifs
+        long preferencesStart = System.nanoTime();
+        UserPreferences preferences = userCache.getPreferences(userId);
+        preferencesStage.record(System.nanoTime() - preferencesStart, TimeUnit.NANOSECONDS);
 
         if (preferences.isEmpty()) {
-            log.warn("No preferences found for user {}, returning bestsellers", userId);
-            return googleBooksService.searchBooks("bestseller", limit);
+            TopKRanking ranking = coReadRanking(userId, limit);
+            List<BookDTO> result = ranking.toList();
+            log.warn("No preferences found for user {}, returning {} co-read books and bestsellers", userId, result.size());
+            if (result.size() >= limit) return new RecommendationResult(result, List.of());
+            SourceResult bestsellers = fetchBounded("bestseller", () -> googleBooksService.searchBooksAsync("bestseller", limit));
+            addBestsellers(result, ranking, bestsellers.books(), limit);
+            List<String> timedOutSources = new ArrayList<>();
+            List<String> failedSources = new ArrayList<>();
+            report(bestsellers, timedOutSources, failedSources);
+            return new RecommendationResult(result, timedOutSources, failedSources);
         }
 
-        List<String> favoriteGenres = preferences.stream()
-                .filter(p -> p.getPreferenceType() == PreferenceType.GENRE)
-                .map(Preference::getPreferenceValue)
-                .collect(Collectors.toList());
-
-        List<String> favoriteAuthors = preferences.stream()
-                .filter(p -> p.getPreferenceType() == PreferenceType.AUTHOR)
-                .map(Preference::getPreferenceValue)
-                .collect(Collectors.toList());
+        List<String> favoriteGenres = preferences.genres();
+        List<String> favoriteAuthors = preferences.authors();
 
         log.info("Genres: {}, Authors: {}", favoriteGenres, favoriteAuthors);
 
-        Set<BookDTO> candidateBooks = new LinkedHashSet<>();
+        // Genres favoris compilés une fois pour tout le scoring
+        GenreTaxonomy.GenreSet genreSet = genreTaxonomy.compile(favoriteGenres);
+
+        // Chaque livre est noté dès que sa source répond ; seuls les `limit` meilleurs sont gardés
+        TopKRanking ranking = new TopKRanking(limit);
+        int[] candidateCount = {0};
+        long[] scoringNanos = {0};
+
+        // Source locale, sans appel amont : notée avant les recherches pour primer sur les doublons
+        long historyStart = System.nanoTime();
+        List<BookDTO> coRead = coReadingService.candidatesFor(userId, CO_READ_CANDIDATES);
+        candidateCount[0] += offerCoRead(ranking, coRead, genreSet, favoriteAuthors);
+        historyStage.record(System.nanoTime() - historyStart, TimeUnit.NANOSECONDS);
+
+        long fetchStart = System.nanoTime();
+        List<String> timedOutSources = new ArrayList<>();
+        List<String> failedSources = new ArrayList<>();
+        fetchCandidates(favoriteGenres, favoriteAuthors, timedOutSources, failedSources, books -> {
+            long scoringStart = System.nanoTime();
+            for (BookDTO book : books) {
+                candidateCount[0]++;
+                ranking.offer(book, calculateRecommendationScore(book, genreSet, favoriteAuthors));
+            }
+            scoringNanos[0] += System.nanoTime() - scoringStart;
+        });
+        // Le scoring se fait au fil des réponses : il est retiré du temps d'attente des sources
+        candidatesStage.record(System.nanoTime() - fetchStart - scoringNanos[0], TimeUnit.NANOSECONDS);
+        candidateSizes.record(candidateCount[0]);
+
+        log.info("Scored {} candidate books, {} with a positive score", candidateCount[0], ranking.acceptedCount());
 
-        // Chercher plus de livres par genre (40 au lieu de 20)
-        for (String genre : favoriteGenres) {
-            log.info("Searching books for genre: {}", genre);
-            List<BookDTO> books = googleBooksService.searchByGenre(genre, 40);
-            log.info("Found {} books for genre: {}", books.size(), genre);
-            candidateBooks.addAll(books);
-        }
+        long rankingStart = System.nanoTime();
+        List<BookDTO> result = ranking.toList();
+        scoringStage.record(scoringNanos[0] + System.nanoTime() - rankingStart, TimeUnit.NANOSECONDS);
 
-        for (String author : favoriteAuthors) {
-            log.info("Searching books for author: {}", author);
-            List<BookDTO> books = googleBooksService.searchByAuthor(author, 20);
-            log.info("Found {} books for author: {}", books.size(), author);
-            candidateBooks.addAll(books);
+        // Si pas assez de résultats, chercher des livres génériques
+        if (result.size() < limit && !favoriteGenres.isEmpty()) {
+            long backfillStart = System.nanoTime();
+            log.info("Not enough results, adding generic books");
+            String mainGenre = favoriteGenres.get(0);
+            SourceResult generic = fetchBounded("backfill:" + mainGenre, () -> googleBooksService.searchBooksAsync(mainGenre, limit));
+            report(generic, timedOutSources, failedSources);
+            addGenericBooks(result, ranking, generic.books(), genreSet, favoriteAuthors, limit);
+            backfillStage.record(System.nanoTime() - backfillStart, TimeUnit.NANOSECONDS);
         }
 
-        log.info("Total candidate books before scoring: {}", candidateBooks.size());
+        log.info("Returning {} books", result.size());
+        return new RecommendationResult(result, timedOutSources, failedSources);
+    }
+
+    // Variante en flux : un classement partiel à chaque source qui répond, puis le classement final
+    // (complété comme getRecommendationResult). Les recherches sont non bloquantes et partagent l'échéance du fan-out.
+    public Flux<RecommendationUpdate> streamRecommendations(Long userId, int limit) {
+        return Flux.defer(() -> {
+            log.info("Streaming recommendations for user: {}", userId);
+            UserPreferences preferences = userCache.getPreferences(userId);
+
+            if (preferences.isEmpty()) {
+                TopKRanking ranking = coReadRanking(userId, limit);
+                List<BookDTO> result = ranking.toList();
+                log.warn("No preferences found for user {}, returning {} co-read books and bestsellers", userId, result.size());
+                if (result.size() >= limit) {
+                    return Flux.just(update(RecommendationUpdate.FINAL, "history", 1, 1, result, List.of(), List.of()));
+                }
+                return boundedSource("bestseller", () -> googleBooksService.searchBooksAsync("bestseller", limit))
+                        .map(bestsellers -> {
+                            addBestsellers(result, ranking, bestsellers.books(), limit);
+                            List<String> timedOutSources = new ArrayList<>();
+                            List<String> failedSources = new ArrayList<>();
+                            report(bestsellers, timedOutSources, failedSources);
+                            return update(RecommendationUpdate.FINAL, "bestseller", 1, 1, result, timedOutSources, failedSources);
+                        })
+                        .flux();
+            }
+
+            List<String> favoriteGenres = preferences.genres();
+            List<String> favoriteAuthors = preferences.authors();
+            GenreTaxonomy.GenreSet genreSet = genreTaxonomy.compile(favoriteGenres);
+
+            // Les signaux d'un flatMap sont sérialisés : classement et compteurs sans verrou
+            TopKRanking ranking = new TopKRanking(limit);
+            List<String> timedOutSources = new ArrayList<>();
+            List<String> failedSources = new ArrayList<>();
+            int[] completed = {0};
+            int[] candidateCount = {0};
+
+            List<BookDTO> coRead = coReadingService.candidatesFor(userId, CO_READ_CANDIDATES);
+            candidateCount[0] += offerCoRead(ranking, coRead, genreSet, favoriteAuthors);
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanoutTimeoutMs);
+            // Le contexte (priorité, échéance) est capturé à l'assemblage des recherches
+            Map<String, Mono<List<BookDTO>>> sources = UpstreamContext.withDeadline(deadline, () -> {
+                Map<String, Mono<List<BookDTO>>> searches = new LinkedHashMap<>();
+                for (String genre : favoriteGenres) {
+                    searches.put("genre:" + genre, googleBooksService.searchByGenreAsync(genre, 40));
+                }
+                for (String author : favoriteAuthors) {
+                    searches.put("author:" + author, googleBooksService.searchByAuthorAsync(author, 20));
+                }
+                return searches;
+            });
+            int totalSources = sources.size() + (coRead.isEmpty() ? 0 : 1);
+
+            Flux<RecommendationUpdate> history = coRead.isEmpty() ? Flux.empty() : Flux.just(update(
+                    RecommendationUpdate.PARTIAL, "history", ++completed[0], totalSources, ranking.toList(),
+                    List.of(), List.of()));
+
+            Flux<RecommendationUpdate> searches = Flux.fromIterable(sources.entrySet())
+                    .flatMap(entry -> fetchSource(entry.getKey(), entry.getValue(), deadline), Math.max(1, sources.size()))
+                    .map(source -> {
+                        report(source, timedOutSources, failedSources);
+                        if (!source.timedOut() && !source.failed()) {
+                            log.info("Found {} books for {}", source.books().size(), source.name());
+                        }
+                        // Livres déjà obtenus par une source en échec ou coupée à l'échéance : candidats eux aussi
+                        for (BookDTO book : source.books()) {
+                            candidateCount[0]++;
+                            ranking.offer(book, calculateRecommendationScore(book, genreSet, favoriteAuthors));
+                        }
+                        return update(RecommendationUpdate.PARTIAL, source.name(), ++completed[0], totalSources,
+                                ranking.toList(), List.copyOf(timedOutSources), List.copyOf(failedSources));
+                    });
+
+            // Préparée à l'assemblage, lancée seulement s'il manque des livres
+            String mainGenre = favoriteGenres.isEmpty() ? null : favoriteGenres.get(0);
+            Mono<SourceResult> backfill = mainGenre == null ? Mono.empty()
+                    : boundedSource("backfill:" + mainGenre, () -> googleBooksService.searchBooksAsync(mainGenre, limit));
+
+            Mono<RecommendationUpdate> last = Mono.defer(() -> {
+                candidateSizes.record(candidateCount[0]);
+                List<BookDTO> result = ranking.toList();
+                if (result.size() >= limit || favoriteGenres.isEmpty()) return Mono.just(result);
+
+                log.info("Not enough results, adding generic books");
+                return backfill
+                        .map(generic -> {
+                            report(generic, timedOutSources, failedSources);
+                            addGenericBooks(result, ranking, generic.books(), genreSet, favoriteAuthors, limit);
+                            return result;
+                        });
+            }).map(result -> update(RecommendationUpdate.FINAL, null, completed[0], totalSources,
+                    result, List.copyOf(timedOutSources), List.copyOf(failedSources)));
+
+            return Flux.concat(history, searches, last);
+        });
+    }
 
-        List<BookDTO> scoredBooks = candidateBooks.stream()
-                .peek(book -> {
-                    double score = calculateRecommendationScore(book, favoriteGenres, favoriteAuthors);
-                    book.setRecommendationScore(score);
+    // Une source en retard est signalée au lieu de retarder le classement final
+    private Mono<SourceResult> fetchSource(String name, Mono<List<BookDTO>> search, long deadline) {
+        return Mono.defer(() -> search.timeout(Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))))
+                .map(books -> new SourceResult(name, books, false, false))
+                .onErrorResume(TimeoutException.class, e -> Mono.just(new SourceResult(name, List.of(), true, false)))
+                .onErrorResume(UpstreamUnavailableException.class, e -> {
+                    // Refus à l'échéance (requêtes suivantes d'une recherche composée) : hors délai, pas en panne
+                    boolean timedOut = deadline - System.nanoTime() <= 0;
+                    if (!timedOut) log.warn("Source {} unavailable: {}", name, e.getMessage());
+                    return Mono.just(new SourceResult(name, e.getPartialResults(), timedOut, !timedOut));
                 })
-                .filter(book -> book.getRecommendationScore() > 0)
-                .sorted(Comparator.comparingDouble(BookDTO::getRecommendationScore).reversed())
-                .collect(Collectors.toList());
+                .onErrorResume(e -> {
+                    log.error("Error fetching candidates for {}: {}", name, e.getMessage());
+                    return Mono.just(new SourceResult(name, List.of(), false, true));
+                });
+    }
 
-        log.info("Books after scoring: {}", scoredBooks.size());
+    // Recherche d'appoint (meilleures ventes, complément) bornée comme une source du fan-out, avec sa propre échéance
+    private SourceResult fetchBounded(String name, Supplier<Mono<List<BookDTO>>> search) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanoutTimeoutMs);
+        return fetchSource(name, UpstreamContext.withDeadline(deadline, search), deadline).block();
+    }
 
-        // Si pas assez de résultats, chercher des livres génériques
-        if (scoredBooks.size() < limit && !favoriteGenres.isEmpty()) {
-            log.info("Not enough results, adding generic books");
-            String mainGenre = favoriteGenres.get(0);
-            List<BookDTO> genericBooks = googleBooksService.searchBooks(mainGenre, limit);
-
-            for (BookDTO book : genericBooks) {
-                if (scoredBooks.size() >= limit) break;
-                double score = calculateRecommendationScore(book, favoriteGenres, favoriteAuthors);
-                if (score > 0) {
-                    book.setRecommendationScore(score);
-                    scoredBooks.add(book);
-                }
+    private Mono<SourceResult> boundedSource(String name, Supplier<Mono<List<BookDTO>>> search) {
+        // Lancée plus tard depuis un autre thread : comptée pour la requête qui l'a préparée
+        Supplier<Mono<List<BookDTO>>> counted = UpstreamCallContext.wrap(search);
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanoutTimeoutMs);
+            return fetchSource(name, UpstreamContext.withDeadline(deadline, counted), deadline);
+        });
+    }
+
+    private void report(SourceResult source, List<String> timedOutSources, List<String> failedSources) {
+        if (source.timedOut()) {
+            log.warn("Source {} did not answer within {} ms", source.name(), fanoutTimeoutMs);
+            timedOutSources.add(source.name());
+        } else if (source.failed()) {
+            failedSources.add(source.name());
+        }
+    }
+
+    private static RecommendationUpdate update(
+            String type, String source, int completedSources, int totalSources,
+            List<BookDTO> recommendations, List<String> timedOutSources, List<String> failedSources) {
+        return RecommendationUpdate.builder()
+                .type(type)
+                .source(source)
+                .completedSources(completedSources)
+                .totalSources(totalSources)
+                .recommendations(recommendations)
+                .timedOutSources(timedOutSources)
+                .failedSources(failedSources)
+                .build();
+    }
+
+    // Candidats co-lus : bonus proportionnel à la similarité, le plus co-lu recevant CO_READ_WEIGHT
+    private int offerCoRead(
+            TopKRanking ranking,
+            List<BookDTO> coRead,
+            GenreTaxonomy.GenreSet genreSet,
+            List<String> favoriteAuthors) {
+        double maxSimilarity = coRead.isEmpty() ? 0 : coRead.get(0).getRecommendationScore();
+        for (BookDTO book : coRead) {
+            double bonus = CO_READ_WEIGHT * book.getRecommendationScore() / maxSimilarity;
+            ranking.offer(book, calculateRecommendationScore(book, genreSet, favoriteAuthors) + bonus);
+        }
+        return coRead.size();
+    }
+
+    // Sans préférences, la bibliothèque peut encore donner des co-lectures : elles passent avant les meilleures ventes
+    private TopKRanking coReadRanking(Long userId, int limit) {
+        TopKRanking ranking = new TopKRanking(limit);
+        offerCoRead(ranking, coReadingService.candidatesFor(userId, CO_READ_CANDIDATES),
+                genreTaxonomy.compile(List.of()), List.of());
+        return ranking;
+    }
+
+    // Meilleures ventes à la suite, sans filtre de score : aucune préférence à laquelle les comparer
+    private static void addBestsellers(List<BookDTO> result, TopKRanking ranking, List<BookDTO> bestsellers, int limit) {
+        for (BookDTO book : bestsellers) {
+            if (result.size() >= limit) break;
+            if (!ranking.contains(book)) result.add(book);
+        }
+    }
+
+    // Complète le classement avec des livres génériques du genre principal non encore classés
+    private void addGenericBooks(
+            List<BookDTO> result,
+            TopKRanking ranking,
+            List<BookDTO> genericBooks,
+            GenreTaxonomy.GenreSet genreSet,
+            List<String> favoriteAuthors,
+            int limit) {
+        for (BookDTO book : genericBooks) {
+            if (result.size() >= limit) break;
+            if (ranking.contains(book)) continue;
+            double score = calculateRecommendationScore(book, genreSet, favoriteAuthors);
+            if (score > 0) {
+                result.add(book.toBuilder().recommendationScore(score).build());
             }
         }
+    }
 
-        List<BookDTO> result = scoredBooks.stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+    private record SourceResult(String name, List<BookDTO> books, boolean timedOut, boolean failed) {
+    }
 
-        log.info("Returning {} books", result.size());
-        return result;
+    // Interroge chaque genre et auteur favori, en parallèle si le fan-out est activé.
+    // Les sources sans réponse avant l'échéance vont dans timedOutSources, celles en erreur dans failedSources.
+    private void fetchCandidates(
+            List<String> favoriteGenres,
+            List<String> favoriteAuthors,
+            List<String> timedOutSources,
+            List<String> failedSources,
+            Consumer<List<BookDTO>> candidateSink) {
+
+        if (!fanoutEnabled) {
+            // Une source après l'autre, sans échéance
+            Map<String, Supplier<List<BookDTO>>> sources = new LinkedHashMap<>();
+            for (String genre : favoriteGenres) {
+                sources.put("genre:" + genre, () -> googleBooksService.searchByGenreAsync(genre, 40).block());
+            }
+            for (String author : favoriteAuthors) {
+                sources.put("author:" + author, () -> googleBooksService.searchByAuthorAsync(author, 20).block());
+            }
+            sources.forEach((source, search) -> {
+                try {
+                    List<BookDTO> books = search.get();
+                    log.info("Found {} books for {}", books.size(), source);
+                    candidateSink.accept(books);
+                } catch (RuntimeException e) {
+                    onSourceFailure(source, e, failedSources, candidateSink);
+                }
+            });
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanoutTimeoutMs);
+        // Recherches non bloquantes lancées ensemble, comme streamRecommendations ;
+        // le contexte (priorité, échéance) est capturé à l'assemblage
+        Map<String, Mono<List<BookDTO>>> sources = UpstreamContext.withDeadline(deadline, () -> {
+            // Chercher plus de livres par genre (40 au lieu de 20)
+            Map<String, Mono<List<BookDTO>>> searches = new LinkedHashMap<>();
+            for (String genre : favoriteGenres) {
+                searches.put("genre:" + genre, googleBooksService.searchByGenreAsync(genre, 40));
+            }
+            for (String author : favoriteAuthors) {
+                searches.put("author:" + author, googleBooksService.searchByAuthorAsync(author, 20));
+            }
+            return searches;
+        });
+        if (sources.isEmpty()) return;
+
+        // Fusion dans l'ordre des préférences pour garder un classement stable ; le scoring reste sur ce thread
+        Flux<SourceResult> results = Flux.fromIterable(sources.entrySet())
+                .flatMapSequential(entry -> fetchSource(entry.getKey(), entry.getValue(), deadline), sources.size());
+        for (SourceResult source : results.toIterable()) {
+            report(source, timedOutSources, failedSources);
+            if (!source.timedOut() && !source.failed()) {
+                log.info("Found {} books for {}", source.books().size(), source.name());
+            }
+            // Livres déjà obtenus par une source en échec ou coupée à l'échéance : candidats eux aussi
+            candidateSink.accept(source.books());
+        }
     }
 
-    private double calculateRecommendationScore(
+    // Source en échec : signalée, ses livres déjà obtenus restent candidats
+    private static void onSourceFailure(
+            String source, Throwable error, List<String> failedSources, Consumer<List<BookDTO>> candidateSink) {
+        log.error("Error fetching candidates for {}: {}", source, error.getMessage());
+        failedSources.add(source);
+        if (error instanceof UpstreamUnavailableException unavailable) {
+            candidateSink.accept(unavailable.getPartialResults());
+        }
+    }
+
+    double calculateRecommendationScore(
             BookDTO book,
-            List<String> favoriteGenres,
+            GenreTaxonomy.GenreSet favoriteGenres,
             List<String> favoriteAuthors) {
 
         double score = 0.0;
 
-        // Score par genres - COMPARAISON FLEXIBLE
+        // Score par genres - même genre canonique ou libellés qui se contiennent
         if (book.getCategories() != null && !book.getCategories().isEmpty()) {
             for (String bookCategory : book.getCategories()) {
-                String normalizedBookCat = bookCategory.toLowerCase().trim();
-
-                for (String favoriteGenre : favoriteGenres) {
-                    String normalizedFavGenre = favoriteGenre.toLowerCase().trim();
-
-                    // Match flexible: contient OU commence par
-                    if (normalizedBookCat.contains(normalizedFavGenre) ||
-                            normalizedFavGenre.contains(normalizedBookCat) ||
-                            areSimilarGenres(normalizedBookCat, normalizedFavGenre)) {
-
-                        score += 50;
-                        log.debug("Genre match: '{}' ~ '{}'", bookCategory, favoriteGenre);
-                        break;
-                    }
+                if (favoriteGenres.matches(genreTaxonomy.resolve(bookCategory))) {
+                    score += 50;
+                    log.debug("Genre match: '{}'", bookCategory);
                 }
             }
         }
@@ -136,8 +454,8 @@ public class RecommendationService {
         if (book.getAuthors() != null && !book.getAuthors().isEmpty()) {
             for (String bookAuthor : book.getAuthors()) {
                 for (String favoriteAuthor : favoriteAuthors) {
-                    if (bookAuthor.toLowerCase().contains(favoriteAuthor.toLowerCase()) ||
-                            favoriteAuthor.toLowerCase().contains(bookAuthor.toLowerCase())) {
+                    if (GenreTaxonomy.containsIgnoreCase(bookAuthor, favoriteAuthor) ||
+                            GenreTaxonomy.containsIgnoreCase(favoriteAuthor, bookAuthor)) {
                         score += 30;
                         log.debug("Author match: {} ~ {}", bookAuthor, favoriteAuthor);
                         break;
@@ -164,38 +482,10 @@ public class RecommendationService {
 
         // Si pas de catégories mais un titre pertinent
         if ((book.getCategories() == null || book.getCategories().isEmpty()) &&
-                book.getTitle() != null) {
-
-            String lowerTitle = book.getTitle().toLowerCase();
-            for (String genre : favoriteGenres) {
-                if (lowerTitle.contains(genre.toLowerCase())) {
-                    score += 20; // Bonus partiel
-                    break;
-                }
-            }
+                book.getTitle() != null && favoriteGenres.matchesText(book.getTitle())) {
+            score += 20; // Bonus partiel
         }
 
         return score;
     }
-
-    private boolean areSimilarGenres(String cat1, String cat2) {
-        // Mapping de genres similaires
-        Map<String, List<String>> similarGenres = Map.of(
-                "self-help", Arrays.asList("personal development", "self improvement", "motivational"),
-                "business", Arrays.asList("economics", "entrepreneurship", "management", "leadership"),
-                "sci-fi", Arrays.asList("science fiction", "speculative fiction"),
-                "mystery", Arrays.asList("detective", "crime", "suspense"),
-                "thriller", Arrays.asList("suspense", "action")
-        );
-
-        for (Map.Entry<String, List<String>> entry : similarGenres.entrySet()) {
-            if (cat1.contains(entry.getKey()) || entry.getValue().stream().anyMatch(cat1::contains)) {
-                if (cat2.contains(entry.getKey()) || entry.getValue().stream().anyMatch(cat2::contains)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
 }
@@ -0,0 +1,276 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.cesi.minipro.booksuggestionapp.client.SingleFlight;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationResult;
+import net.cesi.minipro.booksuggestionapp.event.LibraryChangedEvent;
+import net.cesi.minipro.booksuggestionapp.event.PreferencesChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Listes de recommandations pré-calculées par utilisateur, rafraîchies en arrière-plan.
+// Une requête sans liste en mémoire calcule avec sa propre priorité : elle n'attend jamais un rafraîchissement
+// de fond, qui passe par la file basse du quota Google Books.
+@Service
+public class RecommendationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationStore.class);
+
+    private final RecommendationService recommendationService;
+    private final Executor refreshExecutor;
+
+    // Bornées en nombre ; une liste non servie depuis idle-eviction-seconds est retirée
+    private final Cache<Long, Entry> entries;
+    // Suivies seulement pendant un calcul : retirées quand le dernier calcul de l'utilisateur se termine
+    private final Map<Long, Generation> generations = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> refreshing = new ConcurrentHashMap<>();
+    // Les requêtes simultanées sans liste en mémoire attendent un même calcul (les rafraîchissements n'y entrent pas)
+    private final SingleFlight<Long, Entry> computations = new SingleFlight<>();
+
+    @Value("${recommendation.store.enabled:true}")
+    private boolean enabled;
+
+    // Nombre de livres pré-calculés par utilisateur
+    @Value("${recommendation.store.size:50}")
+    private int storedSize;
+
+    @Value("${recommendation.store.refresh-after-seconds:900}")
+    private long refreshAfterSeconds;
+
+    // Au-delà, une liste n'est plus jamais servie
+    @Value("${recommendation.store.max-staleness-seconds:3600}")
+    private long maxStalenessSeconds;
+
+    public RecommendationStore(
+            RecommendationService recommendationService,
+            @Qualifier("backgroundExecutor") Executor refreshExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${recommendation.store.max-users:10000}") long maxUsers,
+            @Value("${recommendation.store.idle-eviction-seconds:86400}") long idleEvictionSeconds) {
+        this.recommendationService = recommendationService;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfter(new IdleExpiry(TimeUnit.SECONDS.toNanos(idleEvictionSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "recommendation.store");
+    }
+
+    public RecommendationResult getRecommendations(Long userId, int limit) {
+        if (!enabled || limit > storedSize) {
+            return recommendationService.getRecommendationResult(userId, limit);
+        }
+
+        Entry entry = entries.getIfPresent(userId);
+        long now = System.nanoTime();
+
+        if (entry == null || entry.ageSeconds(now) > maxStalenessSeconds) {
+            entry = computations.execute(userId, () -> compute(userId));
+        } else if (entry.ageSeconds(now) > refreshAfterSeconds) {
+            scheduleRefresh(userId);
+        }
+
+        List<BookDTO> books = entry.result.getBooks();
+        return new RecommendationResult(
+                new ArrayList<>(books.subList(0, Math.min(limit, books.size()))),
+                entry.result.getTimedOutSources(),
+                entry.result.getFailedSources(),
+                entry.stored ? entry.version(userId, limit) : null);
+    }
+
+    // ETag de la liste que getRecommendations servirait, sans rien calculer ; null si elle n'est pas en mémoire
+    public String version(Long userId, int limit) {
+        if (!enabled || limit > storedSize) return null;
+
+        Entry entry = entries.getIfPresent(userId);
+        long now = System.nanoTime();
+        if (entry == null || entry.ageSeconds(now) > maxStalenessSeconds) return null;
+        if (entry.ageSeconds(now) > refreshAfterSeconds) {
+            scheduleRefresh(userId);
+        }
+
+        return entry.version(userId, limit);
+    }
+
+    // Après UserCache, pour que le recalcul relise les nouvelles préférences
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPreferencesChanged(PreferencesChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public void invalidate(Long userId) {
+        // Un calcul en cours repose sur les anciennes données : son résultat ne sera pas conservé
+        generations.computeIfPresent(userId, (id, generation) -> {
+            generation.value++;
+            return generation;
+        });
+        boolean wasStored = entries.asMap().remove(userId) != null;
+        if (wasStored) {
+            // L'utilisateur est actif : on recalcule sans attendre sa prochaine visite
+            scheduleRefresh(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.store.refresh-interval-ms:60000}")
+    public void refreshStaleEntries() {
+        long now = System.nanoTime();
+        // Parcours sans effet sur l'éviction : seules les lectures de getRecommendations et version comptent
+        entries.asMap().forEach((userId, entry) -> {
+            if (entry.partial || entry.ageSeconds(now) > refreshAfterSeconds) {
+                // Une liste incomplète (sources hors délai ou en échec) est recalculée au passage suivant
+                scheduleRefresh(userId);
+            }
+        });
+    }
+
+    private void scheduleRefresh(Long userId) {
+        if (refreshing.putIfAbsent(userId, Boolean.TRUE) != null) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    compute(userId);
+                } catch (Exception e) {
+                    log.error("Error refreshing recommendations for user {}: {}", userId, e.getMessage());
+                } finally {
+                    refreshing.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(userId);
+            log.warn("Refresh queue full, recommendations for user {} stay as they are", userId);
+        }
+    }
+
+    private Entry compute(Long userId) {
+        long[] started = new long[1];
+        generations.compute(userId, (id, generation) -> {
+            if (generation == null) generation = new Generation();
+            generation.computing++;
+            started[0] = generation.value;
+            return generation;
+        });
+
+        // L'âge d'une liste part du début de son calcul : elle reflète les données lues à ce moment
+        long startedAt = System.nanoTime();
+        Entry entry = null;
+        try {
+            entry = new Entry(recommendationService.getRecommendationResult(userId, storedSize), startedAt);
+            return entry;
+        } finally {
+            Entry computed = entry;
+            // Sous le verrou de la clé, comme invalidate : pas de liste obsolète enregistrée après une invalidation.
+            // Une liste vide (Google Books indisponible, en général) n'est jamais conservée, ni une liste commencée
+            // avant celle déjà en place (rafraîchissement de fond plus lent que le calcul d'une requête).
+            generations.compute(userId, (id, generation) -> {
+                Entry current = entries.getIfPresent(userId);
+                if (computed != null && generation.value == started[0] && !computed.result.getBooks().isEmpty()
+                        && (current == null || current.computedAt - computed.computedAt <= 0)) {
+                    computed.stored = true;
+                    entries.put(userId, computed);
+                }
+                return --generation.computing == 0 ? null : generation;
+            });
+        }
+    }
+
+    // Un rafraîchissement de fond ne prolonge pas la vie d'une liste : seules les lectures comptent
+    private record IdleExpiry(long idleNanos) implements Expiry<Long, Entry> {
+        @Override
+        public long expireAfterCreate(Long userId, Entry entry, long currentTime) {
+            return idleNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Entry entry, long currentTime, long currentDuration) {
+            return idleNanos;
+        }
+    }
+
+    private static final class Generation {
+        private long value;
+        private int computing;
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static final class Entry {
+        private final RecommendationResult result;
+        private final long computedAt;
+        private final boolean partial;
+        private volatile boolean stored;
+        // prefixHashes[n] : empreinte des n premiers livres (identifiant et score), pour chaque limite servie
+        private final long[] prefixHashes;
+
+        Entry(RecommendationResult result, long computedAt) {
+            this.result = result;
+            this.computedAt = computedAt;
+            this.partial = !isEmpty(result.getTimedOutSources()) || !isEmpty(result.getFailedSources());
+
+            List<BookDTO> books = result.getBooks();
+            long hash = partial
+                    ? mix(mix(FNV_OFFSET, Objects.hashCode(result.getTimedOutSources())), Objects.hashCode(result.getFailedSources()))
+                    : FNV_OFFSET;
+            this.prefixHashes = new long[books.size() + 1];
+            prefixHashes[0] = hash;
+            for (int i = 0; i < books.size(); i++) {
+                BookDTO book = books.get(i);
+                hash = mix(hash, book.getGoogleBookId() != null ? book.getGoogleBookId().hashCode() : 0);
+                hash = mix(hash, book.getRecommendationScore() != null
+                        ? Double.doubleToLongBits(book.getRecommendationScore()) : 0);
+                prefixHashes[i + 1] = hash;
+            }
+        }
+
+        // Dérivé du contenu : identique d'un recalcul ou d'une instance à l'autre si la liste n'a pas changé
+        String version(Long userId, int limit) {
+            int size = Math.min(limit, prefixHashes.length - 1);
+            return "W/\"" + userId + "-" + size + "-" + Long.toHexString(prefixHashes[size]) + "\"";
+        }
+
+        private static boolean isEmpty(List<String> sources) {
+            return sources == null || sources.isEmpty();
+        }
+
+        long ageSeconds(long now) {
+            return TimeUnit.NANOSECONDS.toSeconds(now - computedAt);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.cesi.minipro.booksuggestionapp.client.SingleFlight;
+import net.cesi.minipro.booksuggestionapp.client.ThumbnailClient;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.dto.ReadingHistoryDTO;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Proxy des couvertures : chaque image est téléchargée une fois puis servie depuis un cache disque
+// adressé par contenu (SHA-256 : une même image, comme le visuel "pas de couverture", n'est stockée qu'une fois).
+// Le fichier "index" associe googleBookId -> empreinte ; les images les moins récemment servies sont
+// retirées du cache au-delà de la taille maximale. Les fichiers sont envoyés par sendfile, que Tomcat
+// ouvre par leur nom après la requête : un fichier évincé n'est supprimé du disque qu'après un délai de grâce.
+@Service
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final Pattern GOOGLE_BOOK_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg", "image/png", "png", "image/gif", "gif", "image/webp", "webp");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg", "png", "image/png", "gif", "image/gif", "webp", "image/webp");
+
+    private final ThumbnailClient thumbnailClient;
+    private final BookRepository bookRepository;
+
+    private final boolean enabled;
+    private final String proxyBaseUrl;
+    private final String upstreamUrlTemplate;
+    private final long maxBytes;
+    private final Path directory;
+    private final Path indexFile;
+
+    private final Map<String, String> hashesByBookId = new ConcurrentHashMap<>();
+    // Empreinte -> fichier, du moins récemment servi au plus récent
+    private final LinkedHashMap<String, Blob> blobs = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // Empreinte -> fichier évincé en attente de suppression, par échéance croissante (sous le verrou de blobs)
+    private final LinkedHashMap<String, PendingDelete> pendingDeletes = new LinkedHashMap<>();
+    private final long deleteDelayNanos;
+    private BufferedWriter index;
+
+    private final SingleFlight<String, Boolean> inFlight = new SingleFlight<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ThumbnailService(
+            ThumbnailClient thumbnailClient,
+            BookRepository bookRepository,
+            MeterRegistry meterRegistry,
+            @Value("${thumbnails.proxy.enabled:true}") boolean enabled,
+            @Value("${thumbnails.proxy.base-url:http://localhost:8080}") String proxyBaseUrl,
+            @Value("${thumbnails.upstream-url-template:https://books.google.com/books/content?id={id}&printsec=frontcover&img=1&zoom=1}")
+            String upstreamUrlTemplate,
+            @Value("${thumbnails.cache.dir:data/thumbnails}") String directory,
+            @Value("${thumbnails.cache.max-size-mb:512}") long maxSizeMb,
+            @Value("${thumbnails.cache.delete-delay-seconds:300}") long deleteDelaySeconds) {
+        this.thumbnailClient = thumbnailClient;
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.proxyBaseUrl = proxyBaseUrl.endsWith("/") ? proxyBaseUrl.substring(0, proxyBaseUrl.length() - 1) : proxyBaseUrl;
+        this.upstreamUrlTemplate = upstreamUrlTemplate;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.deleteDelayNanos = TimeUnit.SECONDS.toNanos(deleteDelaySeconds);
+        this.directory = Path.of(directory);
+        this.indexFile = this.directory.resolve("index");
+
+        this.hits = Counter.builder("thumbnails.requests").tag("result", "hit")
+                .description("Thumbnail proxy requests").register(meterRegistry);
+        this.misses = Counter.builder("thumbnails.requests").tag("result", "miss")
+                .description("Thumbnail proxy requests").register(meterRegistry);
+        this.evictions = Counter.builder("thumbnails.evictions")
+                .description("Thumbnails removed from the disk cache").register(meterRegistry);
+        Gauge.builder("thumbnails.cache.bytes", this, ThumbnailService::cachedBytes)
+                .description("Size of the thumbnail disk cache").register(meterRegistry);
+
+        if (enabled) load();
+    }
+
+    // URL publique de la couverture : le proxy si le livre en a une. Adresse configurée, absolue (le frontend
+    // est servi depuis une autre origine) et indépendante de la requête : les réponses asynchrones la calculent
+    // hors du thread de requête.
+    public String proxyUrl(String googleBookId, String thumbnailUrl) {
+        if (!enabled || thumbnailUrl == null || googleBookId == null) return thumbnailUrl;
+        return proxyBaseUrl + "/api/thumbnails/" + googleBookId;
+    }
+
+    // Copies : les DTO viennent des caches et des index, partagés entre requêtes
+    public List<BookDTO> withProxyUrls(List<BookDTO> books) {
+        if (!enabled || books == null) return books;
+        List<BookDTO> rewritten = new ArrayList<>(books.size());
+        for (BookDTO book : books) {
+            rewritten.add(withProxyUrl(book));
+        }
+        return rewritten;
+    }
+
+    public BookDTO withProxyUrl(BookDTO book) {
+        if (!enabled || book.getThumbnailUrl() == null) return book;
+        return book.toBuilder().thumbnailUrl(proxyUrl(book.getGoogleBookId(), book.getThumbnailUrl())).build();
+    }
+
+    // Les DTO de bibliothèque sont construits pour chaque requête : modifiés sur place
+    public <T extends Iterable<ReadingHistoryDTO>> T withProxyUrlsInPlace(T entries) {
+        if (!enabled || entries == null) return entries;
+        for (ReadingHistoryDTO entry : entries) {
+            entry.setThumbnailUrl(proxyUrl(entry.getGoogleBookId(), entry.getThumbnailUrl()));
+        }
+        return entries;
+    }
+
+    // Image en cache, téléchargée au premier accès ; vide si le livre ou sa couverture est introuvable.
+    // Le fichier reste sur le disque au moins deleteDelaySeconds après une éviction : le temps de l'envoyer.
+    public Optional<Thumbnail> get(String googleBookId) {
+        if (!enabled || !GOOGLE_BOOK_ID.matcher(googleBookId).matches()) return Optional.empty();
+
+        Optional<Thumbnail> cached = cached(googleBookId);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        boolean available = inFlight.execute(googleBookId, () -> isCached(googleBookId) || download(googleBookId));
+        return available ? cached(googleBookId) : Optional.empty();
+    }
+
+    private boolean isCached(String googleBookId) {
+        String hash = hashesByBookId.get(googleBookId);
+        if (hash == null) return false;
+        synchronized (blobs) {
+            return blobs.containsKey(hash);
+        }
+    }
+
+    // Fichier disparu (supprimé hors de l'application) : l'entrée est oubliée et l'image sera re-téléchargée
+    private Optional<Thumbnail> cached(String googleBookId) {
+        String hash = hashesByBookId.get(googleBookId);
+        if (hash == null) return Optional.empty();
+        synchronized (blobs) {
+            Blob blob = blobs.get(hash);
+            if (blob == null) return Optional.empty();
+            Path path = directory.resolve(blob.relativePath());
+            if (!Files.isRegularFile(path)) {
+                log.warn("Thumbnail {} missing from the disk cache, downloading it again", path);
+                blobs.remove(hash);
+                totalBytes -= blob.size();
+                return Optional.empty();
+            }
+            return Optional.of(new Thumbnail(hash, path, blob.size(), contentType(blob)));
+        }
+    }
+
+    // URL d'origine enregistrée avec le livre, puis l'URL canonique Google Books si elle échoue
+    private boolean download(String googleBookId) {
+        String canonical = upstreamUrlTemplate.replace("{id}", googleBookId);
+        String stored = bookRepository.findByGoogleBookId(googleBookId).map(Book::getThumbnailUrl).orElse(null);
+        if (stored == null && !hashesByBookId.containsKey(googleBookId)) {
+            // Livre inconnu du catalogue : pas de téléchargement à la demande d'un identifiant arbitraire
+            return false;
+        }
+
+        for (String url : stored != null && !stored.equals(canonical) ? List.of(stored, canonical) : List.of(canonical)) {
+            try {
+                Optional<ThumbnailClient.Image> image = thumbnailClient.fetch(url);
+                if (image.isPresent() && extension(image.get().contentType()) != null) {
+                    store(googleBookId, image.get());
+                    return true;
+                }
+            } catch (Exception e) {
+                log.warn("Error downloading thumbnail {}: {}", url, e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void store(String googleBookId, ThumbnailClient.Image image) {
+        String hash = sha256(image.bytes());
+        String extension = extension(image.contentType());
+        Blob blob = new Blob(hash.substring(0, 2) + "/" + hash + "." + extension, image.bytes().length);
+        Path path = directory.resolve(blob.relativePath());
+
+        synchronized (blobs) {
+            // Même image évincée mais pas encore supprimée : le fichier est repris tel quel
+            pendingDeletes.remove(hash);
+        }
+        try {
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                Path temp = Files.createTempFile(directory, "download", ".tmp");
+                Files.write(temp, image.bytes());
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing thumbnail " + path, e);
+        }
+
+        synchronized (blobs) {
+            if (blobs.putIfAbsent(hash, blob) == null) {
+                totalBytes += blob.size();
+                evict();
+            }
+            hashesByBookId.put(googleBookId, hash);
+            appendIndex(googleBookId, hash);
+        }
+    }
+
+    // Appelé sous le verrou de blobs. Le fichier n'est supprimé qu'après le délai de grâce :
+    // un envoi par sendfile commencé avant l'éviction le rouvre encore par son nom.
+    private void evict() {
+        long deleteAfter = System.nanoTime() + deleteDelayNanos;
+        Iterator<Map.Entry<String, Blob>> eldest = blobs.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Blob> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue().size();
+            evictions.increment();
+            pendingDeletes.put(entry.getKey(), new PendingDelete(directory.resolve(entry.getValue().relativePath()), deleteAfter));
+        }
+        deleteExpired();
+        // Les entrées de l'index vers une image supprimée restent : elle sera re-téléchargée au besoin
+    }
+
+    // Aussi planifié : sans nouveau téléchargement, les fichiers évincés seraient gardés indéfiniment
+    @Scheduled(fixedDelayString = "${thumbnails.cache.delete-interval-ms:60000}")
+    public void deleteEvicted() {
+        synchronized (blobs) {
+            deleteExpired();
+        }
+    }
+
+    // Appelé sous le verrou de blobs
+    private void deleteExpired() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, PendingDelete>> oldest = pendingDeletes.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, PendingDelete> entry = oldest.next();
+            if (entry.getValue().deleteAfterNanos() - now > 0) break;
+            oldest.remove();
+            try {
+                Files.deleteIfExists(entry.getValue().path());
+            } catch (IOException e) {
+                log.warn("Error deleting thumbnail {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void appendIndex(String googleBookId, String hash) {
+        try {
+            index.write(googleBookId + " " + hash);
+            index.newLine();
+            index.flush();
+        } catch (IOException e) {
+            log.warn("Error writing thumbnail index: {}", e.getMessage());
+        }
+    }
+
+    // Relit les images présentes (par date d'accès) et l'index, compacté au passage
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.walk(directory, 2)) {
+                files.filter(file -> file.getParent() != null && !file.getParent().equals(directory))
+                        .filter(Files::isRegularFile)
+                        .sorted(Comparator.comparingLong(ThumbnailService::lastModified))
+                        .forEach(file -> {
+                            String name = file.getFileName().toString();
+                            int dot = name.lastIndexOf('.');
+                            if (dot < 0 || !CONTENT_TYPES.containsKey(name.substring(dot + 1))) return;
+                            Blob blob = new Blob(directory.relativize(file).toString().replace('\\', '/'), file.toFile().length());
+                            blobs.put(name.substring(0, dot), blob);
+                            totalBytes += blob.size();
+                        });
+            }
+
+            if (Files.exists(indexFile)) {
+                for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                    int space = line.indexOf(' ');
+                    if (space > 0 && blobs.containsKey(line.substring(space + 1))) {
+                        hashesByBookId.put(line.substring(0, space), line.substring(space + 1));
+                    }
+                }
+            }
+            Path compacted = directory.resolve("index.tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : hashesByBookId.entrySet()) {
+                    writer.write(entry.getKey() + " " + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(compacted, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            index = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+            synchronized (blobs) {
+                evict();
+            }
+            log.info("Thumbnail cache: {} images, {} books, {} KB", blobs.size(), hashesByBookId.size(), totalBytes / 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening thumbnail cache " + directory, e);
+        }
+    }
+
+    private static String contentType(Blob blob) {
+        String name = blob.relativePath();
+        return CONTENT_TYPES.get(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    private long cachedBytes() {
+        synchronized (blobs) {
+            return totalBytes;
+        }
+    }
+
+    private static String extension(String contentType) {
+        int parameters = contentType.indexOf(';');
+        String type = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase();
+        return EXTENSIONS.get(type);
+    }
+
+    private static long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Blob(String relativePath, long size) {
+    }
+
+    private record PendingDelete(Path path, long deleteAfterNanos) {
+    }
+
+    // hash : empreinte SHA-256 du contenu, utilisable telle quelle comme ETag
+    public record Thumbnail(String hash, Path path, long size, String contentType) {
+    }
+}
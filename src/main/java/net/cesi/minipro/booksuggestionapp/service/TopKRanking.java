@@ -0,0 +1,75 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.util.*;
+
+// Garde les `limit` meilleurs livres au fil de l'eau (tas min borné, mémoire O(limit)).
+// Les doublons sont détectés parmi les livres du classement courant seulement : un livre déjà écarté
+// peut revenir d'une autre source s'il dépasse alors le moins bon du classement.
+// Les scores restent ici : les DTO reçus, partagés avec le cache, ne sont jamais modifiés.
+public class TopKRanking {
+
+    private final int limit;
+    private final PriorityQueue<ScoredBook> heap;
+    // googleBookId -> entrée du tas, pour les livres actuellement classés
+    private final Map<String, ScoredBook> ranked = new HashMap<>();
+    private long sequence;
+    private int accepted;
+
+    public TopKRanking(int limit) {
+        this.limit = limit;
+        // Le moins bon en tête ; à score égal, le dernier arrivé sort en premier
+        this.heap = new PriorityQueue<>(Math.max(1, limit + 1), Comparator
+                .comparingDouble(ScoredBook::score)
+                .thenComparing(Comparator.comparingLong(ScoredBook::sequence).reversed()));
+    }
+
+    // Ignore les doublons d'un livre classé (même googleBookId : le premier arrivé garde sa place) et les scores nuls
+    public boolean offer(BookDTO book, double score) {
+        if (score <= 0 || limit <= 0) return false;
+        String id = book.getGoogleBookId();
+        if (id != null && ranked.containsKey(id)) return false;
+
+        accepted++;
+        ScoredBook scored = new ScoredBook(book, score, sequence++);
+        heap.offer(scored);
+        if (id != null) ranked.put(id, scored);
+        if (heap.size() > limit) {
+            ScoredBook evicted = heap.poll();
+            String evictedId = evicted.book().getGoogleBookId();
+            if (evictedId != null) ranked.remove(evictedId, evicted);
+        }
+        return true;
+    }
+
+    // true si le livre fait partie du classement courant
+    public boolean contains(BookDTO book) {
+        return book.getGoogleBookId() != null && ranked.containsKey(book.getGoogleBookId());
+    }
+
+    // Nombre d'offres retenues depuis le début (avant troncature à `limit`)
+    public int acceptedCount() {
+        return accepted;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    // Classement décroissant ; chaque DTO est une copie portant son score
+    public List<BookDTO> toList() {
+        List<ScoredBook> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(ScoredBook::score).reversed()
+                .thenComparingLong(ScoredBook::sequence));
+
+        List<BookDTO> result = new ArrayList<>(ranked.size());
+        for (ScoredBook scored : ranked) {
+            result.add(scored.book().toBuilder().recommendationScore(scored.score()).build());
+        }
+        return result;
+    }
+
+    private record ScoredBook(BookDTO book, double score, long sequence) {
+    }
+}
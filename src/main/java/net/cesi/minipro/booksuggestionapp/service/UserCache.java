@@ -0,0 +1,96 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.cesi.minipro.booksuggestionapp.dto.UserProfileDTO;
+import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
+import net.cesi.minipro.booksuggestionapp.event.PreferencesChangedEvent;
+import net.cesi.minipro.booksuggestionapp.models.Preference;
+import net.cesi.minipro.booksuggestionapp.repository.PreferenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Préférences et profils par utilisateur ; invalidés après le commit qui les modifie
+@Component
+public class UserCache {
+
+    private final PreferenceRepository preferenceRepository;
+    private final Cache<Long, UserPreferences> preferences;
+    private final Cache<Long, UserProfileDTO> profiles;
+
+    public UserCache(
+            PreferenceRepository preferenceRepository,
+            MeterRegistry meterRegistry,
+            @Value("${user.cache.max-size:100000}") long maxSize,
+            @Value("${user.cache.ttl-seconds:1800}") long ttlSeconds) {
+        this.preferenceRepository = preferenceRepository;
+        // TTL en filet de sécurité : les modifications passent toutes par PreferencesChangedEvent
+        this.preferences = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, preferences, "user.preferences");
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "user.profile");
+    }
+
+    public UserPreferences getPreferences(Long userId) {
+        return preferences.get(userId, this::loadPreferences);
+    }
+
+    // Copie à chaque appel : le DTO retourné peut être modifié par l'appelant
+    public UserProfileDTO getProfile(Long userId, Function<Long, UserProfileDTO> loader) {
+        return copy(profiles.get(userId, loader));
+    }
+
+    // Avant le rafraîchissement des recommandations (RecommendationStore), qui relit les préférences
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPreferencesChanged(PreferencesChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public void invalidate(Long userId) {
+        preferences.invalidate(userId);
+        profiles.invalidate(userId);
+    }
+
+    private UserPreferences loadPreferences(Long userId) {
+        List<String> genres = new ArrayList<>();
+        List<String> authors = new ArrayList<>();
+        for (Preference preference : preferenceRepository.findByUserIdOrderByIdAsc(userId)) {
+            if (preference.getPreferenceType() == PreferenceType.GENRE) {
+                genres.add(preference.getPreferenceValue());
+            } else if (preference.getPreferenceType() == PreferenceType.AUTHOR) {
+                authors.add(preference.getPreferenceValue());
+            }
+        }
+        return new UserPreferences(genres, authors);
+    }
+
+    private static UserProfileDTO copy(UserProfileDTO profile) {
+        return UserProfileDTO.builder()
+                .id(profile.getId())
+                .username(profile.getUsername())
+                .email(profile.getEmail())
+                .favoriteGenres(new ArrayList<>(profile.getFavoriteGenres()))
+                .favoriteAuthors(new ArrayList<>(profile.getFavoriteAuthors()))
+                .createdAt(profile.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import java.util.List;
+
+// Préférences d'un utilisateur déjà séparées par type, dans l'ordre de saisie (immuable, partagée par le cache)
+public record UserPreferences(List<String> genres, List<String> authors) {
+
+    public UserPreferences {
+        genres = List.copyOf(genres);
+        authors = List.copyOf(authors);
+    }
+
+    public boolean isEmpty() {
+        return genres.isEmpty() && authors.isEmpty();
+    }
+}
@@ -4,17 +4,18 @@ package net.cesi.minipro.booksuggestionapp.service;
 import lombok.extern.slf4j.Slf4j;
 import net.cesi.minipro.booksuggestionapp.dto.UpdatePreferencesRequest;
 import net.cesi.minipro.booksuggestionapp.enums.PreferenceType;
+import net.cesi.minipro.booksuggestionapp.event.PreferencesChangedEvent;
 import net.cesi.minipro.booksuggestionapp.models.Preference;
 import net.cesi.minipro.booksuggestionapp.models.User;
 import net.cesi.minipro.booksuggestionapp.dto.UserProfileDTO;
 import net.cesi.minipro.booksuggestionapp.repository.PreferenceRepository;
 import net.cesi.minipro.booksuggestionapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Service
 @Slf4j
@@ -22,68 +23,104 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PreferenceRepository preferenceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserCache userCache;
 
     @Autowired
-    public UserService(UserRepository userRepository, PreferenceRepository preferenceRepository) {
+    public UserService(
+            UserRepository userRepository,
+            PreferenceRepository preferenceRepository,
+            ApplicationEventPublisher eventPublisher,
+            UserCache userCache) {
         this.userRepository = userRepository;
         this.preferenceRepository = preferenceRepository;
+        this.eventPublisher = eventPublisher;
+        this.userCache = userCache;
     }
 
     public UserProfileDTO getUserProfile(Long userId) {
+        return userCache.getProfile(userId, this::loadUserProfile);
+    }
+
+    private UserProfileDTO loadUserProfile(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Preference> preferences = preferenceRepository.findByUserId(userId);
-
-        List<String> genres = preferences.stream()
-                .filter(p -> p.getPreferenceType() == PreferenceType.GENRE)
-                .map(Preference::getPreferenceValue)
-                .collect(Collectors.toList());
-
-        List<String> authors = preferences.stream()
-                .filter(p -> p.getPreferenceType() == PreferenceType.AUTHOR)
-                .map(Preference::getPreferenceValue)
-                .collect(Collectors.toList());
+        UserPreferences preferences = userCache.getPreferences(userId);
 
         return UserProfileDTO.builder()
                 .id(user.getId())
                 .username(user.getUsername())
                 .email(user.getEmail())
-                .favoriteGenres(genres)
-                .favoriteAuthors(authors)
+                .favoriteGenres(preferences.genres())
+                .favoriteAuthors(preferences.authors())
                 .createdAt(user.getCreatedAt())
                 .build();
     }
 
     @Transactional
     public void updatePreferences(Long userId, UpdatePreferencesRequest request) {
-        // Supprimer anciennes préférences
-        preferenceRepository.deleteByUserId(userId);
+        boolean changed = replacePreferences(userId, request.getGenres(), request.getAuthors());
 
-        // Ajouter nouvelles préférences - Genres
-        if (request.getGenres() != null) {
-            request.getGenres().forEach(genre -> {
-                Preference pref = Preference.builder()
-                        .userId(userId)
-                        .preferenceType(PreferenceType.GENRE)
-                        .preferenceValue(genre)
-                        .build();
-                preferenceRepository.save(pref);
-            });
+        // Après le commit : invalidation du cache utilisateur puis recalcul des recommandations
+        if (changed) {
+            eventPublisher.publishEvent(new PreferencesChangedEvent(userId));
+        }
+
+        log.info("Updated preferences for user: {}", userId);
+    }
+
+    // Applique uniquement la différence avec les préférences en base :
+    // 1 SELECT, puis au plus 1 DELETE et 1 INSERT multi-lignes.
+    // L'ordre des lignes (par id) reste celui de la requête, le premier genre étant le genre principal :
+    // une ligne n'est conservée que si elle est la suivante attendue pour son type, les autres valeurs
+    // demandées sont (ré)insérées à la suite dans l'ordre.
+    private boolean replacePreferences(Long userId, List<String> genres, List<String> authors) {
+        Map<PreferenceType, List<String>> wanted = new EnumMap<>(PreferenceType.class);
+        wanted.put(PreferenceType.GENRE, distinctValues(genres));
+        wanted.put(PreferenceType.AUTHOR, distinctValues(authors));
+
+        Map<PreferenceType, Integer> kept = new EnumMap<>(PreferenceType.class);
+        List<Long> toDelete = new ArrayList<>();
+        for (Preference current : preferenceRepository.findByUserIdOrderByIdAsc(userId)) {
+            List<String> values = wanted.getOrDefault(current.getPreferenceType(), List.of());
+            int next = kept.getOrDefault(current.getPreferenceType(), 0);
+            // Les doublons éventuels en base ne sont jamais la valeur suivante : supprimés aussi
+            if (next < values.size() && values.get(next).equals(current.getPreferenceValue())) {
+                kept.put(current.getPreferenceType(), next + 1);
+            } else {
+                toDelete.add(current.getId());
+            }
         }
 
-        // Ajouter nouvelles préférences - Auteurs
-        if (request.getAuthors() != null) {
-            request.getAuthors().forEach(author -> {
-                Preference pref = Preference.builder()
+        List<Preference> toInsert = new ArrayList<>();
+        wanted.forEach((type, values) -> {
+            for (String value : values.subList(kept.getOrDefault(type, 0), values.size())) {
+                toInsert.add(Preference.builder()
                         .userId(userId)
-                        .preferenceType(PreferenceType.AUTHOR)
-                        .preferenceValue(author)
-                        .build();
-                preferenceRepository.save(pref);
-            });
+                        .preferenceType(type)
+                        .preferenceValue(value)
+                        .build());
+            }
+        });
+
+        if (!toDelete.isEmpty()) {
+            preferenceRepository.deleteAllByIdInBatch(toDelete);
         }
+        preferenceRepository.insertAll(toInsert);
 
-        log.info("Updated preferences for user: {}", userId);
+        log.debug("Preferences for user {}: {} removed, {} added", userId, toDelete.size(), toInsert.size());
+        return !toDelete.isEmpty() || !toInsert.isEmpty();
+    }
+
+    private static List<String> distinctValues(List<String> values) {
+        if (values == null) return List.of();
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                distinct.add(value);
+            }
+        }
+        return new ArrayList<>(distinct);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GoogleBooksResponseParserTest {
+
+    private final GoogleBooksResponseParser parser = new GoogleBooksResponseParser();
+
+    @Test
+    void readsUsedVolumeInfoFields() throws IOException {
+        List<BookDTO> books = parse("""
+                {"kind": "books#volumes", "totalItems": 1, "items": [{
+                  "id": "abc123",
+                  "saleInfo": {"country": "FR", "offers": [{"finskyOfferType": 1}]},
+                  "volumeInfo": {
+                    "title": "Dune",
+                    "authors": ["Frank Herbert"],
+                    "categories": ["Fiction", 42],
+                    "publishedDate": "1965",
+                    "pageCount": 412,
+                    "averageRating": 4,
+                    "language": "en",
+                    "industryIdentifiers": [{"type": "ISBN_10", "identifier": "0441013597"}],
+                    "imageLinks": {"smallThumbnail": "http://s", "thumbnail": "http://t"}
+                  }
+                }]}
+                """);
+
+        assertThat(books).hasSize(1);
+        BookDTO book = books.get(0);
+        assertThat(book.getGoogleBookId()).isEqualTo("abc123");
+        assertThat(book.getTitle()).isEqualTo("Dune");
+        assertThat(book.getAuthors()).containsExactly("Frank Herbert");
+        assertThat(book.getCategories()).containsExactly("Fiction");
+        assertThat(book.getPublishedDate()).isEqualTo("1965");
+        assertThat(book.getPageCount()).isEqualTo(412);
+        assertThat(book.getAverageRating()).isEqualTo(4.0);
+        assertThat(book.getLanguage()).isEqualTo("en");
+        assertThat(book.getThumbnailUrl()).isEqualTo("http://t");
+    }
+
+    // Un élément null ou scalaire ne doit pas interrompre la lecture des suivants
+    @Test
+    void skipsItemsThatAreNotObjects() throws IOException {
+        List<BookDTO> books = parse("""
+                {"items": [
+                  {"id": "a", "volumeInfo": {"title": "A"}},
+                  null,
+                  "oops",
+                  [1, 2],
+                  {"id": "b", "volumeInfo": {"title": "B"}}
+                ], "totalItems": 2}
+                """);
+
+        assertThat(books).extracting(BookDTO::getGoogleBookId).containsExactly("a", "b");
+    }
+
+    @Test
+    void ignoresItemsWithoutVolumeInfo() throws IOException {
+        List<BookDTO> books = parse("""
+                {"items": [{"id": "a"}, {"id": "b", "volumeInfo": {"title": "B"}}]}
+                """);
+
+        assertThat(books).extracting(BookDTO::getGoogleBookId).containsExactly("b");
+    }
+
+    @Test
+    void emptyResponses() throws IOException {
+        assertThat(parse("{\"kind\": \"books#volumes\", \"totalItems\": 0}")).isEmpty();
+        assertThat(parse("[]")).isEmpty();
+    }
+
+    @Test
+    void readsRecordedFixtures() throws IOException {
+        assertThat(parse(GoogleBooksFixtures.volumesJson(40, 7))).hasSize(40)
+                .allSatisfy(book -> assertThat(book.getGoogleBookId()).isNotNull());
+    }
+
+    private List<BookDTO> parse(String json) throws IOException {
+        return parser.parseVolumes(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
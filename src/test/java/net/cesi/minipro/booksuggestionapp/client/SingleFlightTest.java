@@ -0,0 +1,130 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<Integer> first = executor.submit(() -> singleFlight.execute("key", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return 42;
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Integer>> others = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                others.add(executor.submit(() -> singleFlight.execute("key", loads::incrementAndGet)));
+            }
+            // Les appelants suivants sont en attente du premier chargement
+            while (singleFlight.inFlightCount() != 1) Thread.onSpinWait();
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            for (Future<Integer> other : others) {
+                assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+            assertThat(loads).hasValue(1);
+            assertThat(singleFlight.inFlightCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequentialCallsLoadAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(singleFlight.execute("key", loads::incrementAndGet)).isEqualTo(1);
+        assertThat(singleFlight.execute("key", loads::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsRethrownAndNotRemembered() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(singleFlight.inFlightCount()).isZero();
+        assertThat(singleFlight.execute("key", () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    void asyncCallersShareTheFutureUntilItCompletes() {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+
+        CompletableFuture<Integer> first = singleFlight.executeAsync("key", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<Integer> second = singleFlight.executeAsync("key", () -> {
+            loads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertThat(singleFlight.inFlightCount()).isEqualTo(1);
+
+        upstream.complete(5);
+
+        assertThat(first.join()).isEqualTo(5);
+        assertThat(second.join()).isEqualTo(5);
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    // Chaque appelant reçoit une copie : en annuler une n'annule pas le chargement partagé
+    @Test
+    void cancellingOneCallerDoesNotCancelTheOthers() {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CompletableFuture<Integer> first = singleFlight.executeAsync("key", () -> upstream);
+        CompletableFuture<Integer> second = singleFlight.executeAsync("key", CompletableFuture::new);
+
+        first.cancel(true);
+        upstream.complete(3);
+
+        assertThat(upstream.isCancelled()).isFalse();
+        assertThat(second.join()).isEqualTo(3);
+    }
+
+    @Test
+    void asyncLoaderThatThrowsFailsTheCall() {
+        CompletableFuture<Integer> call = singleFlight.executeAsync("key", () -> {
+            throw new IllegalArgumentException("bad");
+        });
+
+        assertThat(call).isCompletedExceptionally();
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
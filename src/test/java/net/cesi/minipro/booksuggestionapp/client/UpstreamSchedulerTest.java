@@ -0,0 +1,180 @@
+package net.cesi.minipro.booksuggestionapp.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class UpstreamSchedulerTest {
+
+    // Quasi aucune reconstitution pendant un test
+    private static final double FROZEN_RATE = 0.001;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void burstIsAvailableImmediately() {
+        UpstreamScheduler scheduler = scheduler(FROZEN_RATE, 3, 0, 1_000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isTrue();
+        }
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isFalse();
+    }
+
+    // Au-delà du burst, chaque appel interactif réserve le jeton suivant et attend sa reconstitution
+    @Test
+    void interactiveReservesAheadAndWaitsForRefill() {
+        UpstreamScheduler scheduler = scheduler(10, 1, 0, 1_000);
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isTrue();
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isTrue();
+
+        // Deux jetons à 10/s : environ 200 ms
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(180));
+    }
+
+    @Test
+    void concurrentInteractiveCallersGoIntoDebt() throws Exception {
+        UpstreamScheduler scheduler = scheduler(5, 1, 0, 5_000);
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isTrue();
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> scheduler.acquire(UpstreamPriority.INTERACTIVE, 0));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> scheduler.acquire(UpstreamPriority.INTERACTIVE, 0));
+        waitForWaiters(UpstreamPriority.INTERACTIVE, 2);
+
+        // Deux jetons réservés d'avance : le seau est négatif
+        assertThat(tokens()).isLessThan(-1);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // BACKGROUND ne prend que l'excédent au-dessus de la réserve, INTERACTIVE peut tout prendre
+    @Test
+    void backgroundLeavesTheReserveToInteractive() {
+        UpstreamScheduler scheduler = scheduler(FROZEN_RATE, 4, 2, 1_000);
+
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.BACKGROUND)).isTrue();
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.BACKGROUND)).isTrue();
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.BACKGROUND)).isFalse();
+        assertThat(scheduler.acquire(UpstreamPriority.BACKGROUND, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20)))
+                .isFalse();
+
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isFalse();
+    }
+
+    @Test
+    void backgroundYieldsToWaitingInteractiveCalls() throws Exception {
+        UpstreamScheduler scheduler = scheduler(2, 4, 0, 5_000);
+        for (int i = 0; i < 4; i++) {
+            assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+        }
+
+        CompletableFuture<Boolean> interactive = CompletableFuture.supplyAsync(() -> scheduler.acquire(UpstreamPriority.INTERACTIVE, 0));
+        waitForWaiters(UpstreamPriority.INTERACTIVE, 1);
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.BACKGROUND)).isFalse();
+
+        assertThat(interactive.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // L'attente estimée dépasse l'échéance : refus immédiat, sans consommer de jeton
+    @Test
+    void rejectsCallsThatCannotMakeTheirDeadline() {
+        UpstreamScheduler scheduler = scheduler(1, 1, 0, 5_000);
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+        double before = tokens();
+
+        long start = System.nanoTime();
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, start + TimeUnit.MILLISECONDS.toNanos(100))).isFalse();
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(tokens()).isCloseTo(before, within(0.1));
+        assertThat(registry.get("google.books.scheduler.rejected").tag("lane", "interactive").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void queueMaxWaitBoundsCallsWithoutDeadline() {
+        UpstreamScheduler scheduler = scheduler(1, 1, 0, 100);
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+
+        assertThat(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)).isFalse();
+    }
+
+    // Un appel interactif interrompu rend le jeton qu'il avait réservé
+    @Test
+    void interruptedInteractiveWaiterRefundsItsToken() throws Exception {
+        UpstreamScheduler scheduler = scheduler(1, 1, 0, 5_000);
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread waiter = new Thread(() -> acquired.set(scheduler.acquire(UpstreamPriority.INTERACTIVE, 0)));
+        waiter.start();
+        waitForWaiters(UpstreamPriority.INTERACTIVE, 1);
+        assertThat(tokens()).isLessThan(-0.5);
+
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        assertThat(acquired).isFalse();
+        assertThat(tokens()).isGreaterThan(0);
+        assertThat(registry.get("google.books.scheduler.rejected").tag("lane", "interactive").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedBackgroundWaiterGivesUp() throws Exception {
+        // Jeton suivant dans 10 s : dans la limite d'attente de fond, la tâche patiente
+        UpstreamScheduler scheduler = scheduler(0.1, 1, 0, 5_000);
+        assertThat(scheduler.tryAcquireNow(UpstreamPriority.INTERACTIVE)).isTrue();
+
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread waiter = new Thread(() -> acquired.set(scheduler.acquire(UpstreamPriority.BACKGROUND, 0)));
+        waiter.start();
+        waitForWaiters(UpstreamPriority.BACKGROUND, 1);
+
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        assertThat(acquired).isFalse();
+        assertThat(waiter.isAlive()).isFalse();
+    }
+
+    @Test
+    void acquireAsyncCompletesImmediatelyWhenATokenIsFree() {
+        UpstreamScheduler scheduler = scheduler(FROZEN_RATE, 1, 0, 1_000);
+
+        assertThat(scheduler.acquireAsync(UpstreamPriority.INTERACTIVE, 0).block()).isTrue();
+        assertThat(scheduler.acquireAsync(UpstreamPriority.INTERACTIVE, System.nanoTime() + 1_000).block()).isFalse();
+    }
+
+    // Attente de fond maximale large : seules les échéances explicites limitent les tâches de fond
+    private UpstreamScheduler scheduler(double requestsPerSecond, int burst, int backgroundReserve, long interactiveMaxWaitMs) {
+        return new UpstreamScheduler(requestsPerSecond, burst, backgroundReserve, interactiveMaxWaitMs, 60_000, registry);
+    }
+
+    private double tokens() {
+        return registry.get("google.books.scheduler.tokens").gauge().value();
+    }
+
+    private void waitForWaiters(UpstreamPriority priority, int count) throws InterruptedException {
+        String lane = priority.name().toLowerCase(Locale.ROOT);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("google.books.scheduler.waiting").tag("lane", lane).gauge().value() < count) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+        // Laisse le temps de réserver le jeton après l'inscription dans la file
+        Thread.sleep(20);
+    }
+}
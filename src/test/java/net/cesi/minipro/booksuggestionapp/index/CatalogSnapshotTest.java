@@ -0,0 +1,104 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.event.BooksCachedEvent;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void booksSurviveTheRoundTrip() throws IOException {
+        List<BookDTO> books = new ArrayList<>(GoogleBooksFixtures.books(500, 11));
+        // Note, pages et description absentes : relues null, sans valeur par défaut
+        books.add(BookDTO.builder().googleBookId("sparse").title("Fiche incomplète")
+                .authors(List.of()).categories(List.of()).build());
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(books);
+        Path file = dir.resolve("catalog.snap");
+
+        int written = CatalogSnapshot.write(file, textIndex, similarIndex(textIndex), 1_234L);
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertThat(written).isEqualTo(books.size());
+        assertThat(snapshot.size()).isEqualTo(books.size());
+        assertThat(snapshot.watermark()).isEqualTo(1_234L);
+        assertThat(snapshot.books()).containsExactlyElementsOf(books);
+        assertThat(Files.exists(file.resolveSibling("catalog.snap.tmp"))).isFalse();
+        assertThat(Files.exists(file.resolveSibling("catalog.snap.heap"))).isFalse();
+    }
+
+    @Test
+    void restoredGraphAnswersLikeTheOriginal() throws IOException {
+        List<BookDTO> books = GoogleBooksFixtures.books(1_000, 5);
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(books);
+        SimilarBooksIndex original = similarIndex(textIndex);
+        original.onBooksCached(new BooksCachedEvent(books, true));
+        original.onCatalogLoaded();
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, textIndex, original, 0L);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        BookDTO[] restoredBooks = snapshot.books();
+        BookTextIndex restoredText = new BookTextIndex();
+        restoredText.addAll(List.of(restoredBooks));
+        SimilarBooksIndex restored = similarIndex(restoredText);
+
+        assertThat(snapshot.restoreSimilarityGraph(restored, restoredBooks)).isTrue();
+        assertThat(restored.size()).isEqualTo(original.size());
+        for (int i = 0; i < books.size(); i += 37) {
+            String googleBookId = books.get(i).getGoogleBookId();
+            assertThat(restored.similar(googleBookId, 10)).isEqualTo(original.similar(googleBookId, 10));
+        }
+        // Un index déjà alimenté garde ses propres nœuds
+        assertThat(snapshot.restoreSimilarityGraph(restored, restoredBooks)).isFalse();
+    }
+
+    @Test
+    void snapshotWithoutGraphRestoresNothing() throws IOException {
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(GoogleBooksFixtures.books(20, 1));
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, textIndex, similarIndex(textIndex), 0L);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertThat(snapshot.restoreSimilarityGraph(similarIndex(textIndex), snapshot.books())).isFalse();
+    }
+
+    @Test
+    void rejectsTruncatedAndForeignFiles() throws IOException {
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(GoogleBooksFixtures.books(50, 2));
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, textIndex, similarIndex(textIndex), 0L);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        Path foreign = Files.writeString(dir.resolve("foreign.snap"), "not a snapshot");
+
+        assertThatThrownBy(() -> CatalogSnapshot.open(file)).isInstanceOf(IOException.class).hasMessageContaining("Truncated");
+        assertThatThrownBy(() -> CatalogSnapshot.open(foreign)).isInstanceOf(IOException.class).hasMessageContaining("Not a catalog");
+    }
+
+    // Insertions HNSW exécutées dans le thread appelant
+    private static SimilarBooksIndex similarIndex(BookTextIndex textIndex) {
+        return new SimilarBooksIndex(textIndex, Runnable::run);
+    }
+}
@@ -0,0 +1,154 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CoOccurrenceIndexTest {
+
+    private final CoOccurrenceIndex index = new CoOccurrenceIndex();
+
+    @Test
+    void alsoReadRanksByCosineSimilarity() {
+        index.add(1, 10);
+        index.add(1, 20);
+        index.add(2, 10);
+        index.add(2, 20);
+        index.add(3, 10);
+        index.add(3, 30);
+
+        List<CoOccurrenceIndex.Neighbor> neighbors = index.alsoRead(10, 5);
+
+        // 20 : 2 co-lectures / sqrt(3 * 2) ; 30 : 1 / sqrt(3 * 1)
+        assertThat(neighbors).extracting(CoOccurrenceIndex.Neighbor::bookId).containsExactly(20L, 30L);
+        assertThat(neighbors.get(0).score()).isCloseTo(2 / Math.sqrt(6), within(1e-9));
+        assertThat(neighbors.get(1).score()).isCloseTo(1 / Math.sqrt(3), within(1e-9));
+    }
+
+    @Test
+    void addIsIdempotent() {
+        index.add(1, 10);
+        index.add(1, 20);
+        index.add(1, 20);
+        index.add(2, 10);
+
+        assertThat(index.alsoRead(20, 5)).singleElement()
+                .satisfies(neighbor -> assertThat(neighbor.score()).isCloseTo(1 / Math.sqrt(2), within(1e-9)));
+    }
+
+    @Test
+    void recommendForExcludesOwnedBooks() {
+        index.add(1, 10);
+        index.add(1, 20);
+        index.add(1, 30);
+        index.add(2, 10);
+        index.add(2, 20);
+
+        assertThat(index.recommendFor(2, 5)).extracting(CoOccurrenceIndex.Neighbor::bookId).containsExactly(30L);
+        assertThat(index.recommendFor(1, 5)).isEmpty();
+        assertThat(index.recommendFor(99, 5)).isEmpty();
+    }
+
+    @Test
+    void removeUndoesAdd() {
+        index.add(1, 10);
+        index.add(1, 20);
+        index.add(1, 30);
+        index.add(2, 10);
+
+        index.remove(1, 10);
+        index.remove(1, 10);
+        index.remove(3, 10);
+
+        assertThat(index.alsoRead(10, 5)).isEmpty();
+        assertThat(index.recommendFor(2, 5)).isEmpty();
+        assertThat(index.alsoRead(20, 5)).extracting(CoOccurrenceIndex.Neighbor::bookId).containsExactly(30L);
+
+        // La place libérée par le retrait est reprise correctement
+        index.add(1, 10);
+        assertThat(index.recommendFor(2, 5)).extracting(CoOccurrenceIndex.Neighbor::bookId)
+                .containsExactlyInAnyOrder(20L, 30L);
+    }
+
+    // Ajouts et retraits aléatoires, fusions intercalées : mêmes scores qu'un calcul direct sur les bibliothèques
+    @Test
+    void matchesBruteForceAcrossCompactions() {
+        Random random = new Random(7);
+        Map<Long, Set<Long>> libraries = new HashMap<>();
+        for (int step = 0; step < 4_000; step++) {
+            long user = random.nextInt(60);
+            long book = random.nextInt(80);
+            Set<Long> library = libraries.computeIfAbsent(user, u -> new HashSet<>());
+            if (random.nextInt(4) == 0) {
+                index.remove(user, book);
+                library.remove(book);
+            } else {
+                index.add(user, book);
+                library.add(book);
+            }
+            if (step % 700 == 0) index.compact();
+        }
+
+        for (long user = 0; user < 60; user++) {
+            assertSameScores(index.recommendFor(user, 10), expectedRecommendations(libraries, user), 10);
+        }
+        for (long book = 0; book < 80; book++) {
+            assertSameScores(index.alsoRead(book, 10), expectedAlsoRead(libraries, book), 10);
+        }
+    }
+
+    // Les ex aequo peuvent sortir dans n'importe quel ordre : on compare les scores et chaque score retourné
+    private static void assertSameScores(List<CoOccurrenceIndex.Neighbor> actual, Map<Long, Double> expected, int k) {
+        List<Double> expectedTop = expected.values().stream()
+                .sorted(Comparator.reverseOrder()).limit(k).toList();
+        assertThat(actual).hasSize(expectedTop.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertThat(actual.get(i).score()).isCloseTo(expectedTop.get(i), within(1e-9));
+            assertThat(expected.get(actual.get(i).bookId())).isCloseTo(actual.get(i).score(), within(1e-9));
+        }
+    }
+
+    private static Map<Long, Double> expectedAlsoRead(Map<Long, Set<Long>> libraries, long book) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (long other : allBooks(libraries)) {
+            if (other != book && coReaders(libraries, book, other) > 0) {
+                scores.put(other, similarity(libraries, book, other));
+            }
+        }
+        return scores;
+    }
+
+    private static Map<Long, Double> expectedRecommendations(Map<Long, Set<Long>> libraries, long user) {
+        Set<Long> owned = libraries.getOrDefault(user, Set.of());
+        Map<Long, Double> scores = new HashMap<>();
+        for (long source : owned) {
+            for (long other : allBooks(libraries)) {
+                if (!owned.contains(other) && coReaders(libraries, source, other) > 0) {
+                    scores.merge(other, similarity(libraries, source, other), Double::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static double similarity(Map<Long, Set<Long>> libraries, long a, long b) {
+        return coReaders(libraries, a, b) / Math.sqrt((double) coReaders(libraries, a, a) * coReaders(libraries, b, b));
+    }
+
+    private static int coReaders(Map<Long, Set<Long>> libraries, long a, long b) {
+        int count = 0;
+        for (Set<Long> library : libraries.values()) {
+            if (library.contains(a) && library.contains(b)) count++;
+        }
+        return count;
+    }
+
+    private static Set<Long> allBooks(Map<Long, Set<Long>> libraries) {
+        Set<Long> books = new TreeSet<>();
+        libraries.values().forEach(books::addAll);
+        return books;
+    }
+}
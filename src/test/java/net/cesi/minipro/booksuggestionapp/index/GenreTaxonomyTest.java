@@ -0,0 +1,115 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenreTaxonomyTest {
+
+    private final GenreTaxonomy taxonomy = new GenreTaxonomy();
+
+    @Test
+    void matchesCategoriesThroughAliases() {
+        GenreTaxonomy.GenreSet favorites = taxonomy.compile(List.of("Business", "Science Fiction"));
+
+        assertThat(favorites.matches(taxonomy.resolve("Business & Economics"))).isTrue();
+        assertThat(favorites.matches(taxonomy.resolve("Fiction / Cyberpunk"))).isTrue();
+        assertThat(favorites.matches(taxonomy.resolve("FICTION / SCI-FI"))).isTrue();
+        assertThat(favorites.matches(taxonomy.resolve("Poetry"))).isFalse();
+    }
+
+    @Test
+    void sharedAliasMatchesEveryGenreThatDeclaresIt() {
+        GenreTaxonomy.ResolvedGenre suspense = taxonomy.resolve("Suspense");
+
+        assertThat(taxonomy.compile(List.of("Mystery")).matches(suspense)).isTrue();
+        assertThat(taxonomy.compile(List.of("Thriller")).matches(suspense)).isTrue();
+        assertThat(taxonomy.compile(List.of("Romance")).matches(suspense)).isFalse();
+    }
+
+    // Alias reconnus comme mots entiers seulement
+    @Test
+    void aliasesMatchWholeWordsOnly() {
+        GenreTaxonomy.GenreSet poetry = taxonomy.compile(List.of("Poetry"));
+        GenreTaxonomy.GenreSet thriller = taxonomy.compile(List.of("Thriller"));
+
+        assertThat(poetry.matches(taxonomy.resolve("Science / Universe"))).isFalse();
+        assertThat(poetry.matches(taxonomy.resolve("Versed in Latin"))).isFalse();
+        assertThat(poetry.matches(taxonomy.resolve("Fiction / Verse"))).isTrue();
+        assertThat(thriller.matches(taxonomy.resolve("Business / Transactions"))).isFalse();
+        assertThat(thriller.matches(taxonomy.resolve("Social Interactions"))).isFalse();
+        assertThat(thriller.matches(taxonomy.resolve("Fiction / Action & Adventure"))).isTrue();
+        assertThat(thriller.matches(taxonomy.resolve("Fiction / Thrillers / General"))).isTrue();
+        assertThat(taxonomy.compile(List.of("Self-Help")).matches(taxonomy.resolve("Self-Help / Motivational"))).isTrue();
+    }
+
+    @Test
+    void unknownGenresFallBackToContainment() {
+        GenreTaxonomy.GenreSet favorites = taxonomy.compile(List.of("Cooking"));
+
+        assertThat(favorites.matches(taxonomy.resolve("Cooking / Regional"))).isTrue();
+        assertThat(favorites.matches(taxonomy.resolve("cook"))).isTrue();
+        assertThat(favorites.matches(taxonomy.resolve("Gardening"))).isFalse();
+    }
+
+    @Test
+    void matchesTextIgnoringCase() {
+        GenreTaxonomy.GenreSet favorites = taxonomy.compile(List.of("Fantasy"));
+
+        assertThat(favorites.matchesText("An Epic FANTASY Saga")).isTrue();
+        assertThat(favorites.matchesText("A Cookbook")).isFalse();
+    }
+
+    @Test
+    void searchVariantsForKnownGenresOnly() {
+        assertThat(taxonomy.searchVariants("  fantasy ")).containsExactly("Epic Fantasy", "Urban Fantasy", "Magic", "Wizards");
+        assertThat(taxonomy.searchVariants("Cooking")).isEmpty();
+        assertThat(taxonomy.searchVariants(null)).isEmpty();
+    }
+
+    @Test
+    void genreNamesInDeclarationOrder() {
+        assertThat(taxonomy.genreNames()).hasSize(12).startsWith("Self-Help", "Business").endsWith("Poetry");
+    }
+
+    // Motifs qui se chevauchent et suffixes communs : les liens d'échec doivent retrouver chaque occurrence,
+    // retenue seulement si elle n'est pas collée à une lettre
+    @Test
+    void automatonFindsTheSameWordsAsABoundaryScan() {
+        Map<String, Long> patterns = new LinkedHashMap<>();
+        patterns.put("he", 1L);
+        patterns.put("she", 2L);
+        patterns.put("his", 4L);
+        patterns.put("hers", 8L);
+        patterns.put("ushers", 16L);
+        patterns.put("s", 32L);
+        GenreTaxonomy.AhoCorasick automaton = new GenreTaxonomy.AhoCorasick(patterns);
+
+        Random random = new Random(42);
+        char[] alphabet = {'h', 'e', 's', 'i', 'r', 'u', 'x', ' ', '/'};
+        for (int n = 0; n < 2_000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+
+            long expected = 0;
+            for (Map.Entry<String, Long> pattern : patterns.entrySet()) {
+                String word = pattern.getKey();
+                for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+                    int end = at + word.length();
+                    boolean before = at == 0 || !Character.isLetter(text.charAt(at - 1));
+                    boolean after = end == text.length() || !Character.isLetter(text.charAt(end));
+                    if (before && after) expected |= pattern.getValue();
+                }
+            }
+            assertThat(automaton.match(text.toString())).as(text.toString()).isEqualTo(expected);
+        }
+    }
+}
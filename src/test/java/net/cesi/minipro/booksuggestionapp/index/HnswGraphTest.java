@@ -0,0 +1,92 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswGraphTest {
+
+    private static final int BOOKS = 5_000;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+
+    @Test
+    void emptyGraphFindsNothing() {
+        HnswGraph<String> graph = new HnswGraph<>(16, 100, 42);
+
+        assertThat(graph.search(new float[BookVectorizer.DIMENSIONS], K, 64)).isEmpty();
+    }
+
+    // Vecteurs réels (TF-IDF, catégories, auteurs) : rappel@10 mesuré contre une recherche exhaustive
+    @Test
+    void recallAgainstBruteForce() {
+        List<float[]> vectors = vectorize(GoogleBooksFixtures.books(BOOKS, 42));
+        HnswGraph<Integer> graph = new HnswGraph<>(16, 100, 42);
+        for (int i = 0; i < vectors.size(); i++) {
+            assertThat(graph.insert(i, vectors.get(i))).isEqualTo(i);
+        }
+
+        Random random = new Random(7);
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = vectors.get(random.nextInt(vectors.size()));
+            Set<Integer> expected = bruteForce(vectors, query, K);
+            List<HnswGraph.Match> matches = graph.search(query, K, 64);
+
+            assertThat(matches).hasSize(K);
+            for (int i = 1; i < matches.size(); i++) {
+                assertThat(matches.get(i).similarity()).isLessThanOrEqualTo(matches.get(i - 1).similarity());
+            }
+            for (HnswGraph.Match match : matches) {
+                if (expected.contains(match.id())) found++;
+            }
+        }
+        assertThat(found / (double) (QUERIES * K)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void restoredGraphAnswersLikeTheOriginal() {
+        List<float[]> vectors = vectorize(GoogleBooksFixtures.books(1_000, 3));
+        HnswGraph<Integer> graph = new HnswGraph<>(16, 100, 42);
+        for (int i = 0; i < vectors.size(); i++) {
+            graph.insert(i, vectors.get(i));
+        }
+
+        HnswGraph<Integer> restored = new HnswGraph<>(16, 100, 42);
+        restored.restore(graph.export());
+
+        assertThat(restored.size()).isEqualTo(graph.size());
+        for (int q = 0; q < 50; q++) {
+            float[] query = vectors.get(q * 17);
+            assertThat(restored.search(query, K, 64)).isEqualTo(graph.search(query, K, 64));
+        }
+    }
+
+    private static List<float[]> vectorize(List<BookDTO> books) {
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(books);
+        BookVectorizer vectorizer = new BookVectorizer(textIndex);
+
+        List<float[]> vectors = new ArrayList<>(books.size());
+        for (BookDTO book : books) {
+            float[] vector = vectorizer.vectorize(book);
+            if (vector != null) vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private static Set<Integer> bruteForce(List<float[]> vectors, float[] query, int k) {
+        Integer[] ids = new Integer[vectors.size()];
+        float[] distances = new float[vectors.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+            distances[i] = HnswGraph.distance(query, vectors.get(i));
+        }
+        Arrays.sort(ids, Comparator.comparingDouble(id -> distances[id]));
+        return new HashSet<>(Arrays.asList(ids).subList(0, k));
+    }
+}
@@ -0,0 +1,74 @@
+package net.cesi.minipro.booksuggestionapp.index;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+// Livres similaires : recherche HNSW (ef = 64, comme SimilarBooksIndex) contre parcours exhaustif avec tas borné.
+// Le rappel@10 correspondant est vérifié par HnswGraphTest.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimilarBooksSearchBenchmark {
+
+    private static final int K = 10;
+
+    @Param({"10000", "50000"})
+    private int books;
+
+    private List<float[]> vectors;
+    private HnswGraph<Integer> graph;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<BookDTO> catalog = GoogleBooksFixtures.books(books, 42);
+        BookTextIndex textIndex = new BookTextIndex();
+        textIndex.addAll(catalog);
+        BookVectorizer vectorizer = new BookVectorizer(textIndex);
+
+        vectors = new ArrayList<>(catalog.size());
+        graph = new HnswGraph<>(16, 100, 42);
+        for (BookDTO book : catalog) {
+            float[] vector = vectorizer.vectorize(book);
+            if (vector == null) continue;
+            graph.insert(vectors.size(), vector);
+            vectors.add(vector);
+        }
+    }
+
+    @Benchmark
+    public List<HnswGraph.Match> hnsw() {
+        return graph.search(nextQuery(), K + 1, 64);
+    }
+
+    @Benchmark
+    public PriorityQueue<HnswGraph.Match> bruteForce() {
+        float[] query = nextQuery();
+        PriorityQueue<HnswGraph.Match> top = new PriorityQueue<>(K + 2,
+                (a, b) -> Float.compare(a.similarity(), b.similarity()));
+        for (int i = 0; i < vectors.size(); i++) {
+            float similarity = 1 - HnswGraph.distance(query, vectors.get(i));
+            if (top.size() <= K) {
+                top.offer(new HnswGraph.Match(i, similarity));
+            } else if (similarity > top.peek().similarity()) {
+                top.poll();
+                top.offer(new HnswGraph.Match(i, similarity));
+            }
+        }
+        return top;
+    }
+
+    private float[] nextQuery() {
+        next = (next + 7919) % vectors.size();
+        return vectors.get(next);
+    }
+}
@@ -0,0 +1,27 @@
+package net.cesi.minipro.booksuggestionapp.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Arguments de ligne de commande au format --nom=valeur
+final class Arguments {
+
+    private Arguments() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,216 @@
+package net.cesi.minipro.booksuggestionapp.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Remplaçant local de l'API Google Books (/books/v1/volumes) : réponses enregistrées
+// ou synthétiques, latence et taux d'erreurs configurables.
+//
+// Lancement seul : java ... loadtest.GoogleBooksStubServer --port=8089 --latency-ms=80 --error-rate=0.01
+public class GoogleBooksStubServer {
+
+    public static final String VOLUMES_PATH = "/books/v1/volumes";
+    public static final String CONTENT_PATH = "/books/content";
+
+    // PNG 1x1, servi pour toutes les couvertures (thumbnails.upstream-url-template)
+    private static final byte[] COVER = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR4nGNgYGD4DwABBAEAwS2OUAAAAABJRU5ErkJggg==");
+
+    private final Options options;
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public GoogleBooksStubServer(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GoogleBooksStubServer stub = new GoogleBooksStubServer(Options.parse(args));
+        stub.start();
+        System.out.printf("Google Books stub listening on %s%n", stub.volumesUrl());
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", options.port), 512);
+        // Les requêtes dorment pour simuler la latence : un thread par requête en cours
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "google-books-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(VOLUMES_PATH, this::handle);
+        server.createContext(CONTENT_PATH, this::cover);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String volumesUrl() {
+        return "http://localhost:" + port() + VOLUMES_PATH;
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long failureCount() {
+        return failures.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            String query = params.getOrDefault("q", "");
+            int maxResults = parseInt(params.get("maxResults"), 10);
+
+            sleep(sampleLatencyMillis());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < options.errorRate) {
+                failures.incrementAndGet();
+                send(exchange, 503, "{\"error\":{\"code\":503,\"message\":\"Backend Error\"}}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (roll < options.errorRate + options.throttleRate) {
+                failures.incrementAndGet();
+                send(exchange, 429, "{\"error\":{\"code\":429,\"message\":\"Rate Limit Exceeded\"}}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            send(exchange, 200, responses.computeIfAbsent(query + "|" + maxResults, key -> response(query, maxResults)));
+        }
+    }
+
+    private byte[] response(String query, int maxResults) {
+        if (options.recordings != null) {
+            Path recorded = options.recordings.resolve(recordingName(query));
+            if (Files.isRegularFile(recorded)) {
+                try {
+                    return Files.readAllBytes(recorded);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read recording " + recorded, e);
+                }
+            }
+        }
+        // Même requête -> même réponse, d'un lancement à l'autre
+        return GoogleBooksFixtures.volumesJson(Math.min(maxResults, 40), query.toLowerCase(Locale.ROOT).hashCode())
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    // "subject:Science Fiction" -> subject_science_fiction.json
+    static String recordingName(String query) {
+        return query.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_") + ".json";
+    }
+
+    // Latence de base + queue exponentielle (quelques réponses très lentes, comme en production)
+    private long sampleLatencyMillis() {
+        double jitter = options.jitterMs <= 0 ? 0
+                : -options.jitterMs * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return options.latencyMs + Math.round(jitter);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void cover(HttpExchange exchange) throws IOException {
+        sleep(options.latencyMs);
+        exchange.getResponseHeaders().set("Content-Type", "image/png");
+        exchange.sendResponseHeaders(200, COVER.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(COVER);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static final class Options {
+        // 0 : port libre choisi par le système
+        int port;
+        long latencyMs = 80;
+        long jitterMs = 40;
+        double errorRate;
+        double throttleRate;
+        Path recordings;
+
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            options.port = 8089;
+            options.apply(Arguments.parse(args));
+            return options;
+        }
+
+        void apply(Map<String, String> args) {
+            port = Integer.parseInt(args.getOrDefault("port", String.valueOf(port)));
+            latencyMs = Long.parseLong(args.getOrDefault("latency-ms", String.valueOf(latencyMs)));
+            jitterMs = Long.parseLong(args.getOrDefault("jitter-ms", String.valueOf(jitterMs)));
+            errorRate = Double.parseDouble(args.getOrDefault("error-rate", String.valueOf(errorRate)));
+            throttleRate = Double.parseDouble(args.getOrDefault("throttle-rate", String.valueOf(throttleRate)));
+            if (args.containsKey("recordings")) {
+                recordings = Path.of(args.get("recordings"));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.cesi.minipro.booksuggestionapp.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Latences d'un scénario (en nanosecondes) et répartition des codes de réponse
+final class LatencyRecorder {
+
+    private final String name;
+    private long[] latencies = new long[4096];
+    private int count;
+    private final Map<String, Integer> outcomes = new TreeMap<>();
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long latencyNanos, String outcome) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        outcomes.merge(outcome, 1, Integer::sum);
+    }
+
+    synchronized Summary summarize(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int errors = 0;
+        for (Map.Entry<String, Integer> outcome : outcomes.entrySet()) {
+            if (!outcome.getKey().startsWith("2")) errors += outcome.getValue();
+        }
+        return new Summary(name, count, errors, count / elapsedSeconds,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                sorted.length == 0 ? 0 : toMillis(sorted[sorted.length - 1]), new TreeMap<>(outcomes));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    record Summary(String name, int requests, int errors, double throughput,
+                   double p50, double p90, double p99, double p999, double max,
+                   Map<String, Integer> outcomes) {
+    }
+}
@@ -0,0 +1,250 @@
+package net.cesi.minipro.booksuggestionapp.loadtest;
+
+import net.cesi.minipro.booksuggestionapp.BookSuggestionAppApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Banc de charge de bout en bout : démarre le serveur Google Books local, l'application
+// (profil test : H2 embarquée) puis envoie un débit fixe de requêtes.
+//
+// mvn -Ploadtest test -DskipTests -Dloadtest.args="--rps=100 --duration=60 --stub-latency-ms=120"
+//
+// Options : --rps, --duration, --warmup (secondes), --users, --mix=search:4,genre:2,recommendations:4,
+// --target=http://host:port (application déjà lancée), --report=target/loadtest-result.json,
+// --stub-latency-ms, --stub-jitter-ms, --stub-error-rate, --stub-throttle-rate, --stub-recordings=dir
+public class LoadTestHarness {
+
+    private static final Pattern USER_ID = Pattern.compile("\"userId\"\\s*:\\s*(\\d+)");
+
+    private static final String[] GENRES = {
+            "Fantasy", "Science Fiction", "Mystery", "Thriller", "Romance", "Horror",
+            "Biography", "History", "Philosophy", "Poetry", "Business", "Self-Help"
+    };
+
+    private static final String[] AUTHORS = {
+            "Brandon Sanderson", "Stephen King", "Agatha Christie", "Ursula Le Guin", "Terry Pratchett",
+            "Neil Gaiman", "Margaret Atwood", "Isaac Asimov", "Alexandre Dumas", "Jules Verne"
+    };
+
+    private static final String[] SEARCH_TERMS = {
+            "dragon", "kingdom of shadows", "winter", "the last city", "silver crown", "memory",
+            "journey", "secret garden", "stone river", "machine code", "night storm", "ocean star"
+    };
+
+    private final Map<String, String> args;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private String baseUrl;
+
+    LoadTestHarness(Map<String, String> args) {
+        this.args = args;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestHarness(Arguments.parse(args)).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        GoogleBooksStubServer stub = null;
+        ConfigurableApplicationContext app = null;
+        try {
+            if (args.containsKey("target")) {
+                baseUrl = args.get("target");
+            } else {
+                stub = startStub();
+                app = startApplication(stub);
+                baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+
+            seedUsers(intArg("users", 20));
+
+            int rps = intArg("rps", 50);
+            int warmup = intArg("warmup", 10);
+            int duration = intArg("duration", 30);
+            List<String> scenarios = scenarioMix(args.getOrDefault("mix", "search:4,genre:2,recommendations:4"));
+
+            System.out.printf("Warm-up: %d s at %d req/s against %s%n", warmup, rps, baseUrl);
+            drive(rps, warmup, scenarios, false);
+
+            System.out.printf("Measuring: %d s at %d req/s%n", duration, rps);
+            double elapsed = drive(rps, duration, scenarios, true);
+
+            List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+            for (LatencyRecorder recorder : recorders.values()) {
+                summaries.add(recorder.summarize(elapsed));
+            }
+            printReport(summaries, stub);
+            writeReport(Path.of(args.getOrDefault("report", "target/loadtest-result.json")), rps, summaries);
+        } finally {
+            if (app != null) app.close();
+            if (stub != null) stub.stop();
+        }
+    }
+
+    private GoogleBooksStubServer startStub() throws IOException {
+        GoogleBooksStubServer.Options options = new GoogleBooksStubServer.Options();
+        Map<String, String> stubArgs = new HashMap<>();
+        args.forEach((key, value) -> {
+            if (key.startsWith("stub-")) stubArgs.put(key.substring("stub-".length()), value);
+        });
+        options.apply(stubArgs);
+
+        GoogleBooksStubServer stub = new GoogleBooksStubServer(options);
+        stub.start();
+        System.out.printf("Google Books stub listening on %s%n", stub.volumesUrl());
+        return stub;
+    }
+
+    private ConfigurableApplicationContext startApplication(GoogleBooksStubServer stub) {
+        // Sans quoi devtools relance main() dans un autre classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return SpringApplication.run(BookSuggestionAppApplication.class,
+                "--spring.profiles.active=test",
+                "--server.port=0",
+                "--google.books.api.url=" + stub.volumesUrl(),
+                "--logging.level.net.cesi.minipro=" + args.getOrDefault("app-log-level", "WARN"));
+    }
+
+    private void seedUsers(int count) throws IOException, InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            String body = String.format(
+                    "{\"username\":\"load-%s-%d\",\"email\":\"load-%s-%d@example.com\",\"password\":\"password\","
+                            + "\"favoriteGenres\":[\"%s\",\"%s\"],\"favoriteAuthors\":[\"%s\"]}",
+                    runId, i, runId, i,
+                    GENRES[random.nextInt(GENRES.length)], GENRES[random.nextInt(GENRES.length)],
+                    AUTHORS[random.nextInt(AUTHORS.length)]);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = USER_ID.matcher(response.body());
+            if (response.statusCode() != 200 || !matcher.find()) {
+                throw new IllegalStateException("Cannot register load-test user: " + response.statusCode() + " " + response.body());
+            }
+            userIds.add(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    // Charge en boucle ouverte : chaque requête part à son heure prévue, la latence est mesurée
+    // depuis cette heure (un serveur lent ne ralentit pas le générateur)
+    private double drive(int rps, int seconds, List<String> scenarios, boolean record) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long total = (long) rps * seconds;
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            String scenario = scenarios.get(ThreadLocalRandom.current().nextInt(scenarios.size()));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path(scenario)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            LatencyRecorder recorder = record ? recorders.computeIfAbsent(scenario, LatencyRecorder::new) : null;
+
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (recorder != null) {
+                            recorder.record(System.nanoTime() - scheduled, outcome(response, error));
+                        }
+                        return null;
+                    }));
+            if (pending.size() >= 10_000) {
+                pending.removeIf(CompletableFuture::isDone);
+            }
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private String path(String scenario) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (scenario) {
+            case "search" -> "/api/books/search?query="
+                    + URLEncoder.encode(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], StandardCharsets.UTF_8);
+            case "genre" -> "/api/books/search/genre/"
+                    + URLEncoder.encode(GENRES[random.nextInt(GENRES.length)], StandardCharsets.UTF_8).replace("+", "%20");
+            case "recommendations" -> "/api/books/recommendations/" + userIds.get(random.nextInt(userIds.size()));
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+    }
+
+    private static String outcome(HttpResponse<?> response, Throwable error) {
+        if (error == null) return String.valueOf(response.statusCode());
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpTimeoutException ? "timeout" : cause.getClass().getSimpleName();
+    }
+
+    // "search:4,genre:2" -> liste pondérée pour un tirage uniforme
+    private static List<String> scenarioMix(String mix) {
+        List<String> scenarios = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] weighted = part.trim().split(":");
+            int weight = weighted.length > 1 ? Integer.parseInt(weighted[1]) : 1;
+            for (int i = 0; i < weight; i++) scenarios.add(weighted[0]);
+        }
+        return scenarios;
+    }
+
+    private void printReport(List<LatencyRecorder.Summary> summaries, GoogleBooksStubServer stub) {
+        System.out.println();
+        System.out.printf("%-16s %9s %8s %9s %9s %9s %9s %9s %9s  %s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "outcomes");
+        for (LatencyRecorder.Summary s : summaries) {
+            System.out.printf(Locale.ROOT, "%-16s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n",
+                    s.name(), s.requests(), s.errors(), s.throughput(), s.p50(), s.p90(), s.p99(), s.p999(), s.max(), s.outcomes());
+        }
+        if (stub != null) {
+            System.out.printf("Upstream calls: %d (%d failed)%n", stub.requestCount(), stub.failureCount());
+        }
+    }
+
+    private static void writeReport(Path path, int rps, List<LatencyRecorder.Summary> summaries) throws IOException {
+        StringBuilder json = new StringBuilder("{\"targetRps\":").append(rps).append(",\"scenarios\":[");
+        for (int i = 0; i < summaries.size(); i++) {
+            LatencyRecorder.Summary s = summaries.get(i);
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"requests\":%d,\"errors\":%d,\"throughput\":%.2f,"
+                            + "\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"p999\":%.3f,\"max\":%.3f}",
+                    s.name(), s.requests(), s.errors(), s.throughput(), s.p50(), s.p90(), s.p99(), s.p999(), s.max()));
+        }
+        json.append("]}");
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Files.writeString(path, json);
+        System.out.printf("Report written to %s%n", path);
+    }
+
+    private int intArg(String name, int defaultValue) {
+        return Integer.parseInt(args.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+}
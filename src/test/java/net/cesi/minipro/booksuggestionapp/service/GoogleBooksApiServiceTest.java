@@ -0,0 +1,113 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.cesi.minipro.booksuggestionapp.client.GoogleBooksClient;
+import net.cesi.minipro.booksuggestionapp.client.GoogleBooksResponseParser;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamContext;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamPriority;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamScheduler;
+import net.cesi.minipro.booksuggestionapp.client.UpstreamUnavailableException;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.index.GenreTaxonomy;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleBooksApiServiceTest {
+
+    // Livres sans identifiant : rien à insérer en base, le dépôt n'est pas sollicité
+    private static final List<BookDTO> BOOKS = List.of(BookDTO.builder().title("Dune").build());
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UpstreamScheduler scheduler = new UpstreamScheduler(100, 20, 0, 1_000, 30_000, registry);
+    private final StubClient client = new StubClient();
+    private final GoogleBooksApiService service = new GoogleBooksApiService(client, null,
+            new BookSearchCache(600, 1 << 20, registry), event -> { }, new GenreTaxonomy(), scheduler, registry, 5, 30);
+
+    // Une recherche de fond en cours (préchauffage, rafraîchissement) ne fait pas attendre l'utilisateur
+    @Test
+    void interactiveCallerDoesNotJoinABackgroundSearch() {
+        Sinks.One<List<BookDTO>> backgroundResponse = Sinks.one();
+        client.responses.add(backgroundResponse.asMono());
+        client.responses.add(Mono.just(BOOKS));
+
+        AtomicReference<Mono<List<BookDTO>>> background = new AtomicReference<>();
+        UpstreamContext.background(() -> background.set(service.searchBooksAsync("subject:Fantasy", 10))).run();
+        CompletableFuture<List<BookDTO>> backgroundCall = background.get().toFuture();
+
+        List<BookDTO> interactive = service.searchBooksAsync("subject:Fantasy", 10).block(Duration.ofSeconds(1));
+
+        assertThat(interactive).isEqualTo(BOOKS);
+        assertThat(client.priorities).containsExactly(UpstreamPriority.BACKGROUND, UpstreamPriority.INTERACTIVE);
+        assertThat(backgroundCall).isNotDone();
+        backgroundResponse.tryEmitValue(BOOKS);
+        assertThat(backgroundCall.join()).isEqualTo(BOOKS);
+    }
+
+    @Test
+    void callersOfTheSamePriorityShareOneCall() {
+        Sinks.One<List<BookDTO>> response = Sinks.one();
+        client.responses.add(response.asMono());
+
+        CompletableFuture<List<BookDTO>> first = service.searchBooksAsync("inauthor:Herbert", 10).toFuture();
+        CompletableFuture<List<BookDTO>> second = service.searchBooksAsync("inauthor:Herbert", 10).toFuture();
+        response.tryEmitValue(BOOKS);
+
+        assertThat(first.join()).isEqualTo(BOOKS);
+        assertThat(second.join()).isEqualTo(BOOKS);
+        assertThat(client.priorities).hasSize(1);
+    }
+
+    // L'échéance de l'appelant qui a lancé la requête ne s'applique pas à ceux qui l'ont rejointe
+    @Test
+    void joinerRetriesWhenTheLeaderHitsItsOwnDeadline() throws Exception {
+        Sinks.One<List<BookDTO>> leaderResponse = Sinks.one();
+        client.responses.add(leaderResponse.asMono());
+        client.responses.add(Mono.just(BOOKS));
+
+        CompletableFuture<List<BookDTO>> leader = UpstreamContext.withDeadline(
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100),
+                () -> service.searchBooksAsync("subject:Poetry", 10).toFuture());
+        CompletableFuture<List<BookDTO>> joiner = service.searchBooksAsync("subject:Poetry", 10).toFuture();
+
+        // Délai de l'appel coupé à l'échéance, comme le fait GoogleBooksClient
+        Thread.sleep(150);
+        leaderResponse.tryEmitError(new TimeoutException());
+
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(UpstreamUnavailableException.class);
+        assertThat(joiner.get(1, TimeUnit.SECONDS)).isEqualTo(BOOKS);
+        assertThat(client.deadlines).hasSize(2);
+        assertThat(client.deadlines.get(0)).isNotZero();
+        assertThat(client.deadlines.get(1)).isZero();
+    }
+
+    // Réponses programmées, servies dans l'ordre des appels
+    private class StubClient extends GoogleBooksClient {
+        final List<Mono<List<BookDTO>>> responses = new CopyOnWriteArrayList<>();
+        final List<UpstreamPriority> priorities = new CopyOnWriteArrayList<>();
+        final List<Long> deadlines = new CopyOnWriteArrayList<>();
+
+        StubClient() {
+            super("http://localhost:1", 1, 1_000, 1_000, 1_000, 1_000, 1_000, 0, 100, 100, false, 100,
+                    new GoogleBooksResponseParser(), scheduler, registry);
+        }
+
+        @Override
+        public Mono<List<BookDTO>> searchVolumes(String query, int maxResults, UpstreamContext context) {
+            priorities.add(context.priority());
+            deadlines.add(context.deadlineNanos());
+            return responses.remove(0);
+        }
+    }
+}
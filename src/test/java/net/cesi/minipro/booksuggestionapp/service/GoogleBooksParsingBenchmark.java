@@ -0,0 +1,91 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.cesi.minipro.booksuggestionapp.client.GoogleBooksResponseParser;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Décodage des réponses Google Books (pages de 40 items) et conversion en BookDTO
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GoogleBooksParsingBenchmark {
+
+    private static final int PAGE_SIZE = 40;
+    private static final int DISTINCT_PAGES = 25;
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int books;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GoogleBooksResponseParser responseParser = new GoogleBooksResponseParser();
+    private final List<byte[]> pages = new ArrayList<>();
+    private int pageCount;
+
+    @Setup
+    public void setUp() {
+        pageCount = Math.max(1, books / PAGE_SIZE);
+        for (int i = 0; i < Math.min(pageCount, DISTINCT_PAGES); i++) {
+            pages.add(GoogleBooksFixtures.volumesJson(Math.min(PAGE_SIZE, books), i).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Référence : ancien chemin, arbre Map générique puis conversion
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void parseMapAndConvert(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < pageCount; i++) {
+            Map<String, Object> response = objectMapper.readValue(pages.get(i % pages.size()), Map.class);
+            for (Map<String, Object> item : (List<Map<String, Object>>) response.get("items")) {
+                blackhole.consume(convertToBookDTO(item));
+            }
+        }
+    }
+
+    // Chemin actuel : lecture en flux directement vers BookDTO
+    @Benchmark
+    public void streamingParse(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < pageCount; i++) {
+            blackhole.consume(responseParser.parseVolumes(pages.get(i % pages.size())));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BookDTO convertToBookDTO(Map<String, Object> item) {
+        String googleBookId = (String) item.get("id");
+        Map<String, Object> volumeInfo = (Map<String, Object>) item.get("volumeInfo");
+
+        BookDTO.BookDTOBuilder builder = BookDTO.builder()
+                .googleBookId(googleBookId)
+                .title((String) volumeInfo.get("title"))
+                .authors((List<String>) volumeInfo.getOrDefault("authors", new ArrayList<>()))
+                .description((String) volumeInfo.get("description"))
+                .categories((List<String>) volumeInfo.getOrDefault("categories", new ArrayList<>()))
+                .publishedDate((String) volumeInfo.get("publishedDate"))
+                .pageCount((Integer) volumeInfo.get("pageCount"))
+                .language((String) volumeInfo.get("language"));
+
+        Map<String, String> imageLinks = (Map<String, String>) volumeInfo.get("imageLinks");
+        if (imageLinks != null) {
+            builder.thumbnailUrl(imageLinks.get("thumbnail"));
+        }
+
+        Object rating = volumeInfo.get("averageRating");
+        if (rating instanceof Number number) {
+            builder.averageRating(number.doubleValue());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,48 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryCursorTest {
+
+    @Test
+    void roundTripsPosition() {
+        LibraryCursor cursor = new LibraryCursor(LocalDateTime.of(2024, 3, 15, 9, 30, 12, 123_456_789), 42L);
+
+        assertThat(LibraryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    // LocalDateTime.toString omet les secondes nulles : le format court doit aussi se relire
+    @Test
+    void roundTripsWholeMinutes() {
+        LibraryCursor cursor = new LibraryCursor(LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertThat(LibraryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        String encoded = new LibraryCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59), 1_000_000L).encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> LibraryCursor.decode("%%%")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid library cursor");
+        assertThatThrownBy(() -> LibraryCursor.decode(encode("2024-01-01T10:00"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LibraryCursor.decode(encode("yesterday|12"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LibraryCursor.decode(encode("2024-01-01T10:00|abc"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.enums.ReadingStatus;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.models.ReadingHistory;
+import net.cesi.minipro.booksuggestionapp.models.User;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Conversion des entrées de bibliothèque (convertToDTO) et décodage des auteurs (BookMapper.parseJsonArray)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingHistoryMappingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int books;
+
+    private final List<ReadingHistory> history = new ArrayList<>();
+    private final List<String> authorColumns = new ArrayList<>();
+    private ReadingHistoryService readingHistoryService;
+
+    @Setup
+    public void setUp() {
+        readingHistoryService = new ReadingHistoryService(null, null, null, null);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("reader");
+
+        long id = 1;
+        LocalDateTime addedAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (BookDTO dto : GoogleBooksFixtures.books(books, 7)) {
+            Book book = BookMapper.toBook(dto);
+            book.setId(id);
+
+            ReadingHistory entry = new ReadingHistory();
+            entry.setId(id);
+            entry.setUser(user);
+            entry.setBook(book);
+            entry.setStatus(ReadingStatus.READ);
+            entry.setAddedAt(addedAt.plusMinutes(id));
+            history.add(entry);
+            authorColumns.add(book.getAuthors());
+            id++;
+        }
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        for (ReadingHistory entry : history) {
+            blackhole.consume(readingHistoryService.convertToDTO(entry));
+        }
+    }
+
+    @Benchmark
+    public void parseJsonArray(Blackhole blackhole) {
+        for (String authors : authorColumns) {
+            blackhole.consume(BookMapper.parseJsonArray(authors));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.index.GenreTaxonomy;
+import net.cesi.minipro.booksuggestionapp.support.GoogleBooksFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Scoring des candidats (calculateRecommendationScore) et correspondance des genres (taxonomie)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationScoringBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int books;
+
+    private List<BookDTO> candidates;
+    private RecommendationService recommendationService;
+    private GenreTaxonomy genreTaxonomy;
+    private GenreTaxonomy.GenreSet favoriteGenres;
+    private List<String> favoriteAuthors;
+
+    @Setup
+    public void setUp() {
+        candidates = GoogleBooksFixtures.books(books, 42);
+        genreTaxonomy = new GenreTaxonomy();
+        recommendationService = new RecommendationService(null, null, genreTaxonomy, null, new SimpleMeterRegistry());
+        favoriteGenres = genreTaxonomy.compile(List.of("Fantasy", "Mystery", "Sci-Fi", "Self-Help", "History"));
+        favoriteAuthors = List.of("Brandon Sanderson", "Agatha Christie", "Terry Pratchett");
+    }
+
+    @Benchmark
+    public void scoreCandidates(Blackhole blackhole) {
+        for (BookDTO book : candidates) {
+            blackhole.consume(recommendationService.calculateRecommendationScore(book, favoriteGenres, favoriteAuthors));
+        }
+    }
+
+    @Benchmark
+    public List<BookDTO> scoreAndRankTop20() {
+        TopKRanking ranking = new TopKRanking(20);
+        for (BookDTO book : candidates) {
+            ranking.offer(book, recommendationService.calculateRecommendationScore(book, favoriteGenres, favoriteAuthors));
+        }
+        return ranking.toList();
+    }
+
+    // Remplace areSimilarGenres : résolution (cache) + intersection de masques
+    @Benchmark
+    public void matchGenres(Blackhole blackhole) {
+        for (BookDTO book : candidates) {
+            for (String category : book.getCategories()) {
+                blackhole.consume(favoriteGenres.matches(genreTaxonomy.resolve(category)));
+            }
+        }
+    }
+}
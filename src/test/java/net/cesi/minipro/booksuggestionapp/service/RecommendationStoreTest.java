@@ -0,0 +1,91 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+import net.cesi.minipro.booksuggestionapp.dto.RecommendationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationStoreTest {
+
+    private static final long USER = 1L;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "refresh"));
+    private final StubService service = new StubService();
+    private final RecommendationStore store = store();
+
+    @AfterEach
+    void shutdown() {
+        service.release.countDown();
+        refreshExecutor.shutdownNow();
+    }
+
+    // Après une modification, la requête suivante ne rejoint pas le recalcul de fond (file basse du quota)
+    @Test
+    void missAfterInvalidationDoesNotWaitForTheBackgroundRefresh() throws Exception {
+        assertThat(ids(store.getRecommendations(USER, 10))).containsExactly("request-1");
+
+        store.invalidate(USER);
+        assertThat(service.backgroundStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        RecommendationResult result = CompletableFuture.supplyAsync(() -> store.getRecommendations(USER, 10))
+                .get(1, TimeUnit.SECONDS);
+        assertThat(ids(result)).containsExactly("request-2");
+
+        // Le rafraîchissement, commencé plus tôt, ne remplace pas la liste calculée pour la requête
+        service.release.countDown();
+        refreshExecutor.shutdown();
+        assertThat(refreshExecutor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ids(store.getRecommendations(USER, 10))).containsExactly("request-2");
+    }
+
+    private RecommendationStore store() {
+        RecommendationStore store = new RecommendationStore(service, refreshExecutor, new SimpleMeterRegistry(), 10_000, 86_400);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "storedSize", 50);
+        ReflectionTestUtils.setField(store, "refreshAfterSeconds", 900L);
+        ReflectionTestUtils.setField(store, "maxStalenessSeconds", 3_600L);
+        return store;
+    }
+
+    private static List<String> ids(RecommendationResult result) {
+        return result.getBooks().stream().map(BookDTO::getGoogleBookId).toList();
+    }
+
+    // Les calculs du thread de rafraîchissement restent bloqués jusqu'à release
+    private static class StubService extends RecommendationService {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch backgroundStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        StubService() {
+            super(null, null, null, null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public RecommendationResult getRecommendationResult(Long userId, int limit) {
+            if (Thread.currentThread().getName().equals("refresh")) {
+                backgroundStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new RecommendationResult(List.of(BookDTO.builder().googleBookId("refresh").build()), List.of());
+            }
+            String id = "request-" + calls.incrementAndGet();
+            return new RecommendationResult(List.of(BookDTO.builder().googleBookId(id).build()), List.of());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package net.cesi.minipro.booksuggestionapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.cesi.minipro.booksuggestionapp.client.ThumbnailClient;
+import net.cesi.minipro.booksuggestionapp.models.Book;
+import net.cesi.minipro.booksuggestionapp.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailServiceTest {
+
+    // Deux images de 600 Ko dans un cache de 1 Mo : la seconde évince la première
+    private static final int IMAGE_BYTES = 600 * 1024;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    // Un envoi par sendfile commencé avant l'éviction rouvre encore le fichier par son nom
+    @Test
+    void evictedFileStaysOnDiskDuringTheDeleteDelay() {
+        ThumbnailService service = service(300);
+
+        Path first = service.get("book1").orElseThrow().path();
+        Path second = service.get("book2").orElseThrow().path();
+        service.deleteEvicted();
+
+        assertThat(first).exists();
+        assertThat(second).exists();
+        assertThat(registry.get("thumbnails.cache.bytes").gauge().value()).isEqualTo(IMAGE_BYTES);
+    }
+
+    @Test
+    void evictedFileIsDeletedOnceTheDelayHasPassed() {
+        ThumbnailService service = service(0);
+
+        Path first = service.get("book1").orElseThrow().path();
+        service.get("book2").orElseThrow();
+        service.deleteEvicted();
+
+        assertThat(first).doesNotExist();
+        // Téléchargée de nouveau au besoin
+        assertThat(service.get("book1").orElseThrow().path()).exists();
+    }
+
+    private ThumbnailService service(long deleteDelaySeconds) {
+        return new ThumbnailService(new StubClient(), bookRepository(), registry, true,
+                "http://localhost:8080", "http://localhost:1/books/content?id={id}", dir.toString(), 1, deleteDelaySeconds);
+    }
+
+    // Livres connus du catalogue : seule findByGoogleBookId est appelée
+    private static BookRepository bookRepository() {
+        return (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(), new Class<?>[]{BookRepository.class},
+                (proxy, method, args) -> Optional.of(Book.builder().googleBookId((String) args[0])
+                        .thumbnailUrl("http://localhost:1/covers/" + args[0]).build()));
+    }
+
+    // Image différente par livre, remplie avec le dernier caractère de l'URL
+    private static class StubClient extends ThumbnailClient {
+        StubClient() {
+            super(1, 1_000, IMAGE_BYTES);
+        }
+
+        @Override
+        public Optional<Image> fetch(String url) {
+            byte[] bytes = new byte[IMAGE_BYTES];
+            Arrays.fill(bytes, (byte) url.charAt(url.length() - 1));
+            return Optional.of(new Image(bytes, "image/jpeg"));
+        }
+    }
+}
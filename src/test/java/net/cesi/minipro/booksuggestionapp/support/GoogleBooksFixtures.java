@@ -0,0 +1,178 @@
+package net.cesi.minipro.booksuggestionapp.support;
+
+import net.cesi.minipro.booksuggestionapp.dto.BookDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Données synthétiques au format de l'API Google Books (volumes), déterministes pour un seed donné.
+// Reprend la forme des vraies réponses : volumeInfo complet + saleInfo, accessInfo, searchInfo.
+public final class GoogleBooksFixtures {
+
+    private static final String[] CATEGORIES = {
+            "Fiction", "Fiction / Fantasy / Epic", "Fiction / Science Fiction / General", "Juvenile Fiction",
+            "Business & Economics", "Self-Help", "Biography & Autobiography", "History", "Philosophy",
+            "Poetry", "Fiction / Mystery & Detective / General", "Fiction / Thrillers / Suspense",
+            "Fiction / Romance / Contemporary", "Fiction / Horror", "Cooking", "Science", "Detective and mystery stories"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Anne", "Brandon", "Claire", "David", "Emma", "Frank", "Grace", "Hugo", "Isabel", "Jules",
+            "Karen", "Louis", "Marie", "Neil", "Olivia", "Pierre", "Rachel", "Stephen", "Terry", "Ursula"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Martin", "Sanderson", "Dupont", "Mitchell", "Herbert", "Le Guin", "King", "Pratchett", "Gaiman",
+            "Christie", "Rowling", "Tolkien", "Atwood", "Asimov", "Dumas", "Verne", "Hugo", "Camus"
+    };
+
+    private static final String[] WORDS = {
+            "shadow", "kingdom", "empire", "night", "river", "stone", "dragon", "secret", "garden", "city",
+            "memory", "storm", "silver", "winter", "house", "journey", "last", "war", "light", "crown",
+            "star", "ocean", "fire", "mystery", "road", "machine", "forest", "heart", "witch", "code"
+    };
+
+    private GoogleBooksFixtures() {
+    }
+
+    // Réponse complète /volumes avec `count` items
+    public static String volumesJson(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(count * 3000);
+        json.append("{\"kind\":\"books#volumes\",\"totalItems\":").append(count * 25).append(",\"items\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            appendVolume(json, seed + "-" + i, random);
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    public static List<BookDTO> books(int count, long seed) {
+        Random random = new Random(seed);
+        List<BookDTO> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(BookDTO.builder()
+                    .googleBookId(volumeId(seed + "-" + i))
+                    .title(title(random))
+                    .authors(authors(random))
+                    .description(description(random))
+                    .categories(categories(random))
+                    .thumbnailUrl("http://books.google.com/books/content?id=" + volumeId(seed + "-" + i) + "&printsec=frontcover&img=1&zoom=1")
+                    .averageRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(9) / 2.0)
+                    .publishedDate(String.valueOf(1950 + random.nextInt(75)))
+                    .pageCount(80 + random.nextInt(900))
+                    .language(random.nextInt(5) == 0 ? "fr" : "en")
+                    .build());
+        }
+        return books;
+    }
+
+    public static String volumeId(String key) {
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "").substring(0, 12);
+    }
+
+    private static void appendVolume(StringBuilder json, String key, Random random) {
+        String id = volumeId(key);
+        json.append("{\"kind\":\"books#volume\",\"id\":\"").append(id).append('"')
+                .append(",\"etag\":\"").append(Long.toHexString(random.nextLong())).append('"')
+                .append(",\"selfLink\":\"https://www.googleapis.com/books/v1/volumes/").append(id).append('"')
+                .append(",\"volumeInfo\":{");
+        json.append("\"title\":").append(quote(title(random)));
+        json.append(",\"authors\":").append(array(authors(random)));
+        json.append(",\"publisher\":\"").append(capitalize(WORDS[random.nextInt(WORDS.length)])).append(" Press\"");
+        json.append(",\"publishedDate\":\"").append(1950 + random.nextInt(75)).append("-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(9)).append('"');
+        json.append(",\"description\":").append(quote(description(random)));
+        json.append(",\"industryIdentifiers\":[{\"type\":\"ISBN_13\",\"identifier\":\"978").append(100000000 + random.nextInt(899999999))
+                .append("\"},{\"type\":\"ISBN_10\",\"identifier\":\"").append(1000000000L + random.nextInt(899999999)).append("\"}]");
+        json.append(",\"readingModes\":{\"text\":").append(random.nextBoolean()).append(",\"image\":").append(random.nextBoolean()).append('}');
+        json.append(",\"pageCount\":").append(80 + random.nextInt(900));
+        json.append(",\"printType\":\"BOOK\"");
+        json.append(",\"categories\":").append(array(categories(random)));
+        // Notes tantôt entières, tantôt décimales, comme l'API réelle
+        if (random.nextInt(4) != 0) {
+            int halfStars = 2 + random.nextInt(9);
+            json.append(",\"averageRating\":").append(halfStars % 2 == 0 ? String.valueOf(halfStars / 2) : String.valueOf(halfStars / 2.0));
+            json.append(",\"ratingsCount\":").append(1 + random.nextInt(5000));
+        }
+        json.append(",\"maturityRating\":\"NOT_MATURE\",\"allowAnonLogging\":false,\"contentVersion\":\"1.2.3.0.preview.3\"");
+        json.append(",\"panelizationSummary\":{\"containsEpubBubbles\":false,\"containsImageBubbles\":false}");
+        json.append(",\"imageLinks\":{\"smallThumbnail\":\"http://books.google.com/books/content?id=").append(id)
+                .append("&printsec=frontcover&img=1&zoom=5&source=gbs_api\",\"thumbnail\":\"http://books.google.com/books/content?id=")
+                .append(id).append("&printsec=frontcover&img=1&zoom=1&source=gbs_api\"}");
+        json.append(",\"language\":\"").append(random.nextInt(5) == 0 ? "fr" : "en").append('"');
+        json.append(",\"previewLink\":\"http://books.google.fr/books?id=").append(id).append("&printsec=frontcover&hl=&source=gbs_api\"");
+        json.append(",\"infoLink\":\"http://books.google.fr/books?id=").append(id).append("&hl=&source=gbs_api\"");
+        json.append(",\"canonicalVolumeLink\":\"https://books.google.com/books/about/x.html?hl=&id=").append(id).append('"');
+        json.append('}');
+        json.append(",\"saleInfo\":{\"country\":\"FR\",\"saleability\":\"FOR_SALE\",\"isEbook\":true,")
+                .append("\"listPrice\":{\"amount\":").append(5 + random.nextInt(20)).append(".99,\"currencyCode\":\"EUR\"},")
+                .append("\"retailPrice\":{\"amount\":").append(4 + random.nextInt(20)).append(".49,\"currencyCode\":\"EUR\"},")
+                .append("\"buyLink\":\"https://play.google.com/store/books/details?id=").append(id).append("&rdid=book-").append(id).append("\",")
+                .append("\"offers\":[{\"finskyOfferType\":1,\"listPrice\":{\"amountInMicros\":9990000,\"currencyCode\":\"EUR\"},")
+                .append("\"retailPrice\":{\"amountInMicros\":7490000,\"currencyCode\":\"EUR\"}}]}");
+        json.append(",\"accessInfo\":{\"country\":\"FR\",\"viewability\":\"PARTIAL\",\"embeddable\":true,\"publicDomain\":false,")
+                .append("\"textToSpeechPermission\":\"ALLOWED\",\"epub\":{\"isAvailable\":true,\"acsTokenLink\":\"http://books.google.fr/books/download/x-sample-epub.acsm?id=")
+                .append(id).append("\"},\"pdf\":{\"isAvailable\":false},\"webReaderLink\":\"http://play.google.com/books/reader?id=")
+                .append(id).append("\",\"accessViewStatus\":\"SAMPLE\",\"quoteSharingAllowed\":false}");
+        json.append(",\"searchInfo\":{\"textSnippet\":").append(quote(sentence(random, 20))).append('}');
+        json.append('}');
+    }
+
+    private static String title(Random random) {
+        return "The " + capitalize(WORDS[random.nextInt(WORDS.length)]) + " of " + capitalize(WORDS[random.nextInt(WORDS.length)]);
+    }
+
+    private static List<String> authors(Random random) {
+        int count = 1 + (random.nextInt(5) == 0 ? 1 : 0);
+        List<String> authors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            authors.add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        }
+        return authors;
+    }
+
+    private static List<String> categories(Random random) {
+        return List.of(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+    }
+
+    private static String description(Random random) {
+        StringBuilder text = new StringBuilder();
+        int sentences = 4 + random.nextInt(8);
+        for (int i = 0; i < sentences; i++) {
+            if (i > 0) text.append(' ');
+            text.append(sentence(random, 10 + random.nextInt(15)));
+        }
+        return text.toString();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) text.append(' ');
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(i == 0 ? capitalize(word) : word);
+        }
+        return text.append('.').toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String array(List<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(quote(values.get(i)));
+        }
+        return json.append(']').toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}